@@ -0,0 +1,147 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.bench.DataGenerator.Dataset;
+import edu.ccrm.io.BackupService;
+import edu.ccrm.io.ExportReport;
+import edu.ccrm.io.ImportExportService;
+import edu.ccrm.io.ImportReport;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.Metrics;
+import edu.ccrm.service.StudentService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * CSV import/export and backups at growing data sizes. Each of these takes milliseconds to
+ * seconds, so every iteration times a single call after an untimed reset of its target.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class IoBenchmarks {
+
+    /** The generated dataset, exported once; the export is the input for the import and backup benchmarks. */
+    @State(Scope.Benchmark)
+    public static class Exported {
+        @Param({"10000", "100000", "1000000"})
+        public int scale;
+
+        @Param({"true"})
+        public boolean metrics;
+
+        Path work;
+        Path export;
+        Path students;
+        ImportExportService io;
+
+        @Setup(Level.Trial)
+        public void export() throws IOException {
+            Metrics.shared().setEnabled(metrics);
+            Dataset d = DataGenerator.load(scale, ServiceBenchmarks.SEED);
+            io = new ImportExportService(d.studentService, d.courseService, d.enrollmentService);
+            work = Files.createTempDirectory("ccrm-bench");
+            export = work.resolve("export");
+            students = export.resolve("students_export.csv");
+            io.exportAll(export);
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            deleteTree(work);
+        }
+    }
+
+    /** Empty services for every import, so each one loads the full file. */
+    @State(Scope.Thread)
+    public static class Fresh {
+        ImportExportService importer;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            StudentService ss = new StudentService();
+            CourseService cs = new CourseService();
+            importer = new ImportExportService(ss, cs, new EnrollmentService(ss, cs));
+        }
+    }
+
+    /** A backup folder emptied before every iteration. */
+    @State(Scope.Thread)
+    public static class EmptyBackups {
+        final BackupService backups = new BackupService();
+        Path base;
+
+        @Setup(Level.Iteration)
+        public void reset(Exported e) throws IOException {
+            base = e.work.resolve("backups-full");
+            deleteTree(base);
+        }
+    }
+
+    /** A backup folder holding one full backup of the unchanged export. */
+    @State(Scope.Thread)
+    public static class BaselineBackup {
+        final BackupService backups = new BackupService();
+        Path base;
+
+        @Setup(Level.Trial)
+        public void baseline(Exported e) throws IOException {
+            base = e.work.resolve("backups-incremental");
+            deleteTree(base);
+            backups.backup(e.export, base);
+        }
+    }
+
+    @Benchmark
+    public ImportReport importStudents(Exported e, Fresh f) throws IOException {
+        return f.importer.importStudents(e.students, ImportExportService.DEFAULT_BATCH_SIZE, null);
+    }
+
+    @Benchmark
+    public ImportReport importStudentsParallel(Exported e, Fresh f) throws IOException {
+        return f.importer.importStudentsParallel(e.students, Runtime.getRuntime().availableProcessors());
+    }
+
+    @Benchmark
+    public ExportReport exportAll(Exported e) throws IOException {
+        return e.io.exportAll(e.work.resolve("export-bench"));
+    }
+
+    @Benchmark
+    public Path backupFull(Exported e, EmptyBackups b) throws IOException {
+        return b.backups.backup(e.export, b.base);
+    }
+
+    @Benchmark
+    public Path backupIncremental(Exported e, BaselineBackup b) throws IOException {
+        return b.backups.backup(e.export, b.base);
+    }
+
+    static void deleteTree(Path root) throws IOException {
+        if (!Files.exists(root)) return;
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) Files.delete(p);
+        }
+    }
+}
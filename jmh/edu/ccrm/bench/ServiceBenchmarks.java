@@ -0,0 +1,108 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.bench.DataGenerator.Dataset;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.Metrics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups, enrollment and reporting on the in-memory services at growing data sizes
+ * (courses = students/50, 4 enrollments each).
+ *
+ * Run with {@code java -jar target/benchmarks.jar ServiceBenchmarks -p scale=10000}; the
+ * forked JVM gets enough heap for 1M students.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class ServiceBenchmarks {
+
+    static final int SPARE_STUDENTS = 1024; // never enrolled by the generator; used by enrollByRegNo
+    static final long SEED = 42;
+
+    @State(Scope.Benchmark)
+    public static class Data {
+        @Param({"10000", "100000", "1000000"})
+        public int scale;
+
+        @Param({"true"})
+        public boolean metrics;
+
+        Dataset dataset;
+        // random but fixed access order, a power of two long so the cursor can wrap with a mask
+        final String[] regNos = new String[1 << 16];
+        final String[] codes = new String[regNos.length];
+
+        @Setup(Level.Trial)
+        public void load() {
+            Metrics.shared().setEnabled(metrics);
+            dataset = DataGenerator.load(scale, SEED);
+            dataset.studentService.addStudents(new DataGenerator(SEED).students(scale, SPARE_STUDENTS));
+            SplittableRandom random = new SplittableRandom(SEED);
+            for (int i = 0; i < regNos.length; i++) {
+                regNos[i] = DataGenerator.regNo(random.nextInt(scale));
+                codes[i] = DataGenerator.courseCode(random.nextInt(dataset.courses));
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        int next() {
+            return next++;
+        }
+    }
+
+    @Benchmark
+    public Optional<Student> findByRegNo(Data d, Cursor c) {
+        return d.dataset.studentService.findByRegNo(d.regNos[c.next() & (d.regNos.length - 1)]);
+    }
+
+    /** Enrolls one of the spare students and takes the seat back, so the dataset does not drift. */
+    @Benchmark
+    public void enrollByRegNoAndUnenroll(Data d, Cursor c, Blackhole bh) throws Exception {
+        int i = c.next();
+        String reg = DataGenerator.regNo(d.scale + (i & (SPARE_STUDENTS - 1)));
+        String code = d.codes[i & (d.codes.length - 1)];
+        EnrollmentService es = d.dataset.enrollmentService;
+        es.enrollByRegNo(reg, code);
+        es.unenrollByRegNo(reg, code);
+        bh.consume(reg);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Map<String, Long> gpaDistribution(Data d) {
+        return d.dataset.enrollmentService.gpaDistribution();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<String> topStudents(Data d) {
+        return d.dataset.enrollmentService.topStudents(10);
+    }
+}
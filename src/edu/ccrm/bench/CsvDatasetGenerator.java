@@ -0,0 +1,202 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Writes a synthetic dataset as {@code students.csv}, {@code courses.csv} and
+ * {@code enrollments.csv}, in the formats read and written by ImportExportService.
+ *
+ * Course popularity and the course-to-department split follow Zipf distributions, so a
+ * few courses and departments draw most enrollments. Grades follow configurable weights.
+ * Each student's courses are distinct and stay under the 20-credit limit, so every row
+ * loads cleanly. Output is fully determined by the seed.
+ *
+ * Usage: {@code java edu.ccrm.bench.CsvDatasetGenerator <outDir> [key=value ...]} with
+ * {@code students=, courses=, perStudent=, courseSkew=, departmentSkew=, ungraded=,
+ * grades=S:5,A:15,..., seed=}.
+ */
+public class CsvDatasetGenerator {
+
+    static final int MAX_CREDITS = 20; // EnrollmentService's per-student limit
+    private static final Grade[] GRADES = Grade.values();
+    private static final Semester[] SEMESTERS = Semester.values();
+    private static final int WRITE_BUFFER = 1 << 16;
+
+    private final long seed;
+    private int students = 100_000;
+    private int courses = 2_000;
+    private int perStudent = 4;
+    private double courseSkew = 1.0;
+    private double departmentSkew = 0.8;
+    private double ungraded = 0.25;
+    private double[] gradeWeights = {5, 15, 25, 25, 15, 8, 7}; // S A B C D E F
+
+    public CsvDatasetGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    public CsvDatasetGenerator students(int n) { this.students = n; return this; }
+    public CsvDatasetGenerator courses(int n) { this.courses = n; return this; }
+    /** Average enrollments per student; each student gets 0..2x this, capped by credits. */
+    public CsvDatasetGenerator perStudent(int n) { this.perStudent = n; return this; }
+    /** Zipf exponent of course popularity; 0 = uniform. */
+    public CsvDatasetGenerator courseSkew(double s) { this.courseSkew = s; return this; }
+    /** Zipf exponent of how courses are spread over departments; 0 = even. */
+    public CsvDatasetGenerator departmentSkew(double s) { this.departmentSkew = s; return this; }
+    /** Fraction of enrollments left without a grade. */
+    public CsvDatasetGenerator ungraded(double fraction) { this.ungraded = fraction; return this; }
+
+    /** Relative weight of each grade, indexed by {@link Grade#ordinal()}. */
+    public CsvDatasetGenerator gradeWeights(double[] weights) {
+        if (weights.length != GRADES.length) throw new IllegalArgumentException("Need " + GRADES.length + " grade weights");
+        this.gradeWeights = weights.clone();
+        return this;
+    }
+
+    /** Parses {@code "S:5,A:15,B:25"}; grades not listed get weight 0. */
+    static double[] parseGradeWeights(String spec) {
+        double[] w = new double[GRADES.length];
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            if (kv.length != 2) throw new IllegalArgumentException("Bad grade weight: " + part);
+            w[Grade.valueOf(kv[0].trim().toUpperCase()).ordinal()] = Double.parseDouble(kv[1].trim());
+        }
+        return w;
+    }
+
+    /** Writes the three files into {@code dir}; returns the number of enrollment rows. */
+    public long write(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] credits = writeCourses(dir.resolve("courses.csv"), random);
+        writeStudents(dir.resolve("students.csv"));
+        return writeEnrollments(dir.resolve("enrollments.csv"), credits, random);
+    }
+
+    private int[] writeCourses(Path file, SplittableRandom random) throws IOException {
+        ZipfSampler departments = new ZipfSampler(DataGenerator.DEPARTMENTS.length, departmentSkew);
+        int[] credits = new int[courses];
+        try (BufferedWriter w = writer(file)) {
+            StringBuilder sb = new StringBuilder(128);
+            for (int i = 0; i < courses; i++) {
+                credits[i] = 2 + random.nextInt(3);
+                sb.setLength(0);
+                sb.append(DataGenerator.courseCode(i)).append(",Course ").append(i).append(',')
+                        .append(credits[i]).append(',')
+                        .append(DataGenerator.DEPARTMENTS[departments.next(random)]).append(',')
+                        .append(SEMESTERS[random.nextInt(SEMESTERS.length)].name()).append('\n');
+                w.append(sb);
+            }
+        }
+        return credits;
+    }
+
+    private void writeStudents(Path file) throws IOException {
+        try (BufferedWriter w = writer(file)) {
+            StringBuilder sb = new StringBuilder(128);
+            for (int i = 0; i < students; i++) {
+                sb.setLength(0);
+                sb.append(DataGenerator.regNo(i)).append(",Student ").append(i)
+                        .append(",student").append(i).append("@bench.ccrm.edu\n");
+                w.append(sb);
+            }
+        }
+    }
+
+    private long writeEnrollments(Path file, int[] credits, SplittableRandom random) throws IOException {
+        ZipfSampler popularity = new ZipfSampler(courses, courseSkew);
+        double[] gradeCdf = cdf(gradeWeights);
+        LocalDateTime base = LocalDateTime.of(2025, 1, 6, 9, 0);
+        int maxPerStudent = Math.min(2 * perStudent, courses);
+        int[] picked = new int[maxPerStudent];
+        long rows = 0;
+        try (BufferedWriter w = writer(file)) {
+            StringBuilder sb = new StringBuilder(128);
+            for (int s = 0; s < students; s++) {
+                String reg = DataGenerator.regNo(s);
+                int want = random.nextInt(maxPerStudent + 1);
+                int n = 0, load = 0;
+                // bounded retries: a heavily skewed draw keeps hitting the same few courses
+                for (int attempt = 0; n < want && attempt < 8 * maxPerStudent; attempt++) {
+                    int c = popularity.next(random);
+                    if (load + credits[c] > MAX_CREDITS || contains(picked, n, c)) continue;
+                    picked[n++] = c;
+                    load += credits[c];
+                    sb.setLength(0);
+                    sb.append(reg).append(',').append(DataGenerator.courseCode(c)).append(',');
+                    if (random.nextDouble() >= ungraded) sb.append(GRADES[pick(gradeCdf, random)].name());
+                    sb.append(',').append(base.plusMinutes(random.nextInt(365 * 24 * 60))).append('\n');
+                    w.append(sb);
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static double[] cdf(double[] weights) {
+        double[] c = new double[weights.length];
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) c[i] = total += Math.max(0, weights[i]);
+        if (total <= 0) throw new IllegalArgumentException("Grade weights are all zero");
+        for (int i = 0; i < c.length; i++) c[i] /= total;
+        return c;
+    }
+
+    private static int pick(double[] cdf, SplittableRandom random) {
+        double r = random.nextDouble();
+        for (int i = 0; i < cdf.length; i++) if (r < cdf[i]) return i;
+        return cdf.length - 1;
+    }
+
+    private static boolean contains(int[] a, int n, int v) {
+        for (int i = 0; i < n; i++) if (a[i] == v) return true;
+        return false;
+    }
+
+    private static BufferedWriter writer(Path file) throws IOException {
+        return new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), WRITE_BUFFER);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: CsvDatasetGenerator <outDir> [students=N courses=N perStudent=N courseSkew=S "
+                    + "departmentSkew=S ungraded=F grades=S:5,A:15,... seed=N]");
+            return;
+        }
+        Path out = Path.of(args[0]);
+        long seed = 42;
+        for (String arg : args) if (arg.startsWith("seed=")) seed = Long.parseLong(arg.substring(5));
+        CsvDatasetGenerator gen = new CsvDatasetGenerator(seed);
+        for (String arg : Arrays.copyOfRange(args, 1, args.length)) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Expected key=value: " + arg);
+            String value = arg.substring(eq + 1);
+            switch (arg.substring(0, eq)) {
+                case "students" -> gen.students(Integer.parseInt(value));
+                case "courses" -> gen.courses(Integer.parseInt(value));
+                case "perStudent" -> gen.perStudent(Integer.parseInt(value));
+                case "courseSkew" -> gen.courseSkew(Double.parseDouble(value));
+                case "departmentSkew" -> gen.departmentSkew(Double.parseDouble(value));
+                case "ungraded" -> gen.ungraded(Double.parseDouble(value));
+                case "grades" -> gen.gradeWeights(parseGradeWeights(value));
+                case "seed" -> { }
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        long start = System.nanoTime();
+        long rows = gen.write(out);
+        System.out.printf("Wrote %d students, %d courses, %d enrollments to %s in %d ms%n",
+                gen.students, gen.courses, rows, out.toAbsolutePath(), (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,118 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentRequest;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic students, courses and enrollments for benchmarks.
+ *
+ * The same seed always yields the same data. Student i has regNo {@link #regNo(int)} and
+ * course i has code {@link #courseCode(int)}, so callers can address rows by index
+ * without keeping the generated lists around.
+ */
+public class DataGenerator {
+
+    public static final String[] DEPARTMENTS = {"CSE", "ECE", "MECH", "CIVIL", "MATH", "PHY", "CHEM", "BIO", "HUM", "MGMT"};
+    private static final Grade[] GRADES = Grade.values();
+    private static final Semester[] SEMESTERS = Semester.values();
+
+    private final SplittableRandom random;
+
+    public DataGenerator(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    public static String regNo(int i) {
+        return String.format("B%08d", i);
+    }
+
+    public static String courseCode(int i) {
+        return DEPARTMENTS[i % DEPARTMENTS.length] + String.format("%05d", i);
+    }
+
+    public List<Student> students(int from, int count) {
+        List<Student> out = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            out.add(new Student("bench-" + i, "Student " + i, "student" + i + "@bench.ccrm.edu", regNo(i)));
+        }
+        return out;
+    }
+
+    public List<Course> courses(int count) {
+        List<Course> out = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            out.add(new Course.Builder(courseCode(i), "Course " + i)
+                    .credits(2 + random.nextInt(3))
+                    .department(DEPARTMENTS[i % DEPARTMENTS.length])
+                    .semester(SEMESTERS[i % SEMESTERS.length])
+                    .build());
+        }
+        return out;
+    }
+
+    /**
+     * {@code perStudent} distinct random courses for each of students {@code from} to
+     * {@code from + count - 1}, about three in four graded. Course credits are 2-4, so up to five per
+     * student stay under the credit limit.
+     */
+    public List<EnrollmentRequest> enrollments(int from, int count, int courses, int perStudent) {
+        List<EnrollmentRequest> out = new ArrayList<>(count * perStudent);
+        int[] picked = new int[perStudent];
+        for (int s = from; s < from + count; s++) {
+            String reg = regNo(s);
+            for (int k = 0; k < perStudent; k++) {
+                int c;
+                do {
+                    c = random.nextInt(courses);
+                } while (contains(picked, k, c));
+                picked[k] = c;
+                Grade g = random.nextInt(4) == 0 ? null : GRADES[random.nextInt(GRADES.length)];
+                out.add(new EnrollmentRequest(reg, courseCode(c), g));
+            }
+        }
+        return out;
+    }
+
+    private static boolean contains(int[] a, int n, int v) {
+        for (int i = 0; i < n; i++) if (a[i] == v) return true;
+        return false;
+    }
+
+    /** Services loaded with {@code students} students, students/50 courses (at least 50) and 4 enrollments each. */
+    public static Dataset load(int students, long seed) {
+        DataGenerator gen = new DataGenerator(seed);
+        int courses = Math.max(50, students / 50);
+        Dataset d = new Dataset(students, courses);
+        d.courseService.addCourses(gen.courses(courses));
+        // in slices, so the generated lists stay small at 1M students
+        for (int from = 0; from < students; from += 100_000) {
+            int n = Math.min(100_000, students - from);
+            d.studentService.addStudents(gen.students(from, n));
+            d.enrollmentService.enrollBatch(gen.enrollments(from, n, courses, 4));
+        }
+        return d;
+    }
+
+    public static final class Dataset {
+        public final int students;
+        public final int courses;
+        public final StudentService studentService = new StudentService();
+        public final CourseService courseService = new CourseService();
+        public final EnrollmentService enrollmentService = new EnrollmentService(studentService, courseService);
+
+        Dataset(int students, int courses) {
+            this.students = students;
+            this.courses = courses;
+        }
+    }
+}
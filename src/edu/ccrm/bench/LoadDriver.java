@@ -0,0 +1,264 @@
+package edu.ccrm.bench;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Student;
+import edu.ccrm.io.CsvFields;
+import edu.ccrm.io.ImportExportService;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentRequest;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.Metrics;
+import edu.ccrm.service.StudentService;
+import edu.ccrm.util.LatencyHistogram;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Multi-threaded load test: loads a CSV dataset into the services, then has worker
+ * threads replay a weighted mix of enroll, unenroll and grade calls for a fixed time and
+ * reports throughput and latency percentiles per operation.
+ *
+ * Students are picked uniformly. Courses to enroll into are picked with Zipf skew over
+ * the courses ranked by enrollment count at load time, so the popular courses stay hot.
+ * Unenroll and grade pick one of the student's current enrollments; the lookup is part
+ * of the measured call.
+ *
+ * Usage: {@code java edu.ccrm.bench.LoadDriver [key=value ...]}
+ * <ul>
+ * <li>{@code data=<dir>} students.csv, courses.csv and enrollments.csv as written by
+ * {@link CsvDatasetGenerator}; without it a dataset of {@code students=} (default 100000)
+ * is generated into a temp directory</li>
+ * <li>{@code threads=N} workers (default: cores), {@code duration=30 warmup=5} seconds</li>
+ * <li>{@code mix=enroll:40,unenroll:30,grade:30} relative weights, {@code skew=1.0} course popularity</li>
+ * </ul>
+ */
+public class LoadDriver {
+
+    enum Op { ENROLL, UNENROLL, GRADE }
+
+    private static final Op[] OPS = Op.values();
+    private static final Grade[] GRADES = Grade.values();
+    private static final Metrics.Failure[] FAILURES = Metrics.Failure.values();
+
+    private final StudentService studentService = new StudentService();
+    private final CourseService courseService = new CourseService();
+    private final EnrollmentService enrollmentService = new EnrollmentService(studentService, courseService);
+    private final LatencyHistogram[] latency = new LatencyHistogram[OPS.length];
+    private final LongAdder[] failures = new LongAdder[OPS.length * FAILURES.length];
+    private volatile boolean stop;
+
+    private String[] regNos;
+    private String[] coursesByPopularity;
+    private ZipfSampler popularity;
+    private double[] mixCdf;
+
+    LoadDriver() {
+        for (int i = 0; i < latency.length; i++) latency[i] = new LatencyHistogram();
+        for (int i = 0; i < failures.length; i++) failures[i] = new LongAdder();
+    }
+
+    /** Import the three CSVs; enrollments go through enrollBatch in chunks. */
+    void load(Path dir, double skew) throws IOException {
+        ImportExportService io = new ImportExportService(studentService, courseService, enrollmentService);
+        System.out.println(io.importCourses(dir.resolve("courses.csv"), ImportExportService.DEFAULT_BATCH_SIZE, null));
+        System.out.println(io.importStudents(dir.resolve("students.csv"), ImportExportService.DEFAULT_BATCH_SIZE, null));
+
+        long rows = 0, enrolled = 0;
+        List<EnrollmentRequest> batch = new ArrayList<>(ImportExportService.DEFAULT_BATCH_SIZE);
+        String[] f = new String[3];
+        try (BufferedReader in = Files.newBufferedReader(dir.resolve("enrollments.csv"), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                int n = CsvFields.split(line, f);
+                if (n < 2) continue;
+                rows++;
+                Grade grade = null;
+                if (n > 2 && !f[2].isEmpty()) {
+                    try {
+                        grade = Grade.valueOf(f[2].toUpperCase());
+                    } catch (IllegalArgumentException e) {
+                        continue; // counted as read, not loaded
+                    }
+                }
+                batch.add(new EnrollmentRequest(f[0], f[1], grade));
+                if (batch.size() == ImportExportService.DEFAULT_BATCH_SIZE) {
+                    enrolled += enrollmentService.enrollBatch(batch).succeeded();
+                    batch.clear();
+                }
+            }
+        }
+        enrolled += enrollmentService.enrollBatch(batch).succeeded();
+        System.out.println("Enrollments: " + enrolled + " of " + rows + " rows loaded");
+
+        regNos = studentService.listStudents().stream().map(Student::getRegNo).toArray(String[]::new);
+        coursesByPopularity = courseService.listCourses().stream()
+                .sorted(Comparator.comparingInt((Course c) -> enrollmentService.enrollmentCount(c.getCode())).reversed())
+                .map(Course::getCode).toArray(String[]::new);
+        if (regNos.length == 0 || coursesByPopularity.length == 0) throw new IOException("Dataset in " + dir + " is empty");
+        popularity = new ZipfSampler(coursesByPopularity.length, skew);
+    }
+
+    /** Parses {@code "enroll:40,unenroll:30,grade:30"}; operations not listed are not run. */
+    void mix(String spec) {
+        double[] w = new double[OPS.length];
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            if (kv.length != 2) throw new IllegalArgumentException("Bad mix entry: " + part);
+            w[Op.valueOf(kv[0].trim().toUpperCase()).ordinal()] = Double.parseDouble(kv[1].trim());
+        }
+        double total = 0;
+        mixCdf = new double[OPS.length];
+        for (int i = 0; i < w.length; i++) mixCdf[i] = total += Math.max(0, w[i]);
+        if (total <= 0) throw new IllegalArgumentException("Mix has no operations: " + spec);
+        for (int i = 0; i < mixCdf.length; i++) mixCdf[i] /= total;
+    }
+
+    void run(int threads, long warmupSeconds, long durationSeconds) throws InterruptedException {
+        SplittableRandom root = new SplittableRandom(42);
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            SplittableRandom random = root.split();
+            workers[i] = new Thread(() -> work(random), "load-" + i);
+            workers[i].start();
+        }
+        Thread.sleep(warmupSeconds * 1000);
+        for (LatencyHistogram h : latency) h.reset();
+        for (LongAdder a : failures) a.reset();
+        Metrics.shared().reset();
+
+        long start = System.nanoTime();
+        Thread.sleep(durationSeconds * 1000);
+        stop = true;
+        for (Thread t : workers) t.join();
+        report(threads, System.nanoTime() - start);
+    }
+
+    private void work(SplittableRandom random) {
+        while (!stop) {
+            Op op = pickOp(random.nextDouble());
+            String reg = regNos[random.nextInt(regNos.length)];
+            long start = System.nanoTime();
+            Metrics.Failure failure = null;
+            switch (op) {
+                case ENROLL -> {
+                    try {
+                        enrollmentService.enrollByRegNo(reg, coursesByPopularity[popularity.next(random)]);
+                    } catch (Exception e) {
+                        failure = Metrics.Failure.of(e);
+                    }
+                }
+                case UNENROLL, GRADE -> {
+                    List<Enrollment> current = enrollmentService.enrollmentsForStudent(reg);
+                    if (current.isEmpty()) {
+                        failure = Metrics.Failure.NOT_FOUND;
+                    } else {
+                        // another thread may unenroll it first: use the variants that report that
+                        String code = current.get(random.nextInt(current.size())).getCourse().getCode();
+                        if (op == Op.UNENROLL) {
+                            failure = Metrics.Failure.of(
+                                    enrollmentService.unenrollBatch(List.of(EnrollmentRequest.of(reg, code))).outcome(0));
+                        } else if (!enrollmentService.changeGrade(reg, code, GRADES[random.nextInt(GRADES.length)])) {
+                            failure = Metrics.Failure.NOT_FOUND;
+                        }
+                    }
+                }
+            }
+            latency[op.ordinal()].record(System.nanoTime() - start);
+            if (failure != null) failures[op.ordinal() * FAILURES.length + failure.ordinal()].increment();
+        }
+    }
+
+    private Op pickOp(double r) {
+        for (int i = 0; i < mixCdf.length; i++) if (r < mixCdf[i]) return OPS[i];
+        return OPS[OPS.length - 1];
+    }
+
+    private void report(int threads, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        long total = 0;
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-9s %10s %11s %8s %9s %9s %9s %10s%n",
+                "op", "calls", "ops/s", "failed", "p50_us", "p99_us", "p999_us", "max_us"));
+        for (Op op : OPS) {
+            LatencyHistogram.Snapshot h = latency[op.ordinal()].snapshot();
+            if (h.getCount() == 0) continue;
+            total += h.getCount();
+            long failed = 0;
+            for (Metrics.Failure f : FAILURES) failed += failures[op.ordinal() * FAILURES.length + f.ordinal()].sum();
+            sb.append(String.format(Locale.ROOT, "%-9s %10d %11.0f %8d %9.1f %9.1f %9.1f %10.1f%n",
+                    op, h.getCount(), h.getCount() / seconds, failed, h.valueAt(0.50) / 1e3,
+                    h.valueAt(0.99) / 1e3, h.valueAt(0.999) / 1e3, h.getMax() / 1e3));
+        }
+        for (Op op : OPS) {
+            StringBuilder causes = new StringBuilder();
+            for (Metrics.Failure f : FAILURES) {
+                long n = failures[op.ordinal() * FAILURES.length + f.ordinal()].sum();
+                if (n != 0) causes.append(' ').append(f).append('=').append(n);
+            }
+            if (causes.length() > 0) sb.append("failed ").append(op).append(':').append(causes).append('\n');
+        }
+        System.out.printf(Locale.ROOT, "%n%d threads, %.1f s: %d ops, %.0f ops/s%n", threads, seconds, total, total / seconds);
+        System.out.print(sb);
+        System.out.println();
+        System.out.print(Metrics.shared().snapshot());
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path data = null;
+        int students = 100_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long duration = 30, warmup = 5;
+        String mix = "enroll:40,unenroll:30,grade:30";
+        double skew = 1.0;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0) throw new IllegalArgumentException("Expected key=value: " + arg);
+            String value = arg.substring(eq + 1);
+            switch (arg.substring(0, eq)) {
+                case "data" -> data = Path.of(value);
+                case "students" -> students = Integer.parseInt(value);
+                case "threads" -> threads = Integer.parseInt(value);
+                case "duration" -> duration = Long.parseLong(value);
+                case "warmup" -> warmup = Long.parseLong(value);
+                case "mix" -> mix = value;
+                case "skew" -> skew = Double.parseDouble(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        LoadDriver driver = new LoadDriver();
+        driver.mix(mix);
+        Path generated = null;
+        if (data == null) {
+            generated = Files.createTempDirectory("ccrm-load");
+            new CsvDatasetGenerator(42).students(students).courses(Math.max(50, students / 50)).courseSkew(skew).write(generated);
+            data = generated;
+        }
+        try {
+            driver.load(data, skew);
+        } finally {
+            if (generated != null) deleteTree(generated);
+        }
+        System.out.printf("Running %s on %d threads for %d s (+%d s warm-up)%n", mix, threads, duration, warmup);
+        driver.run(threads, warmup, duration);
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) Files.delete(p);
+        }
+    }
+}
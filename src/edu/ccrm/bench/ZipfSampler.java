@@ -0,0 +1,32 @@
+package edu.ccrm.bench;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Draws ranks 0..n-1 with probability proportional to 1/(rank+1)^s. s = 0 is uniform;
+ * around 1 a handful of ranks take most of the draws. Uses a precomputed CDF and a
+ * binary search, so a draw is O(log n) and the sampler can be shared between threads.
+ */
+final class ZipfSampler {
+
+    private final double[] cdf;
+
+    ZipfSampler(int n, double s) {
+        if (n <= 0) throw new IllegalArgumentException("n must be positive: " + n);
+        cdf = new double[n];
+        double total = 0;
+        for (int i = 0; i < n; i++) cdf[i] = total += 1 / Math.pow(i + 1, s);
+        for (int i = 0; i < n; i++) cdf[i] /= total;
+        cdf[n - 1] = 1.0;
+    }
+
+    int next(SplittableRandom random) {
+        int i = Arrays.binarySearch(cdf, random.nextDouble());
+        return i >= 0 ? i : Math.min(-i - 1, cdf.length - 1);
+    }
+
+    int size() {
+        return cdf.length;
+    }
+}
@@ -2,13 +2,23 @@ package edu.ccrm.cli;
 
 import edu.ccrm.config.AppConfig;
 import edu.ccrm.domain.*;
+import edu.ccrm.io.BackupManifest;
 import edu.ccrm.io.BackupService;
 import edu.ccrm.io.ImportExportService;
+import edu.ccrm.io.Journal;
+import edu.ccrm.io.SnapshotService;
+import edu.ccrm.io.TranscriptJob;
+import edu.ccrm.service.CourseQuery;
 import edu.ccrm.service.CourseService;
 import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.GpaHistogram;
+import edu.ccrm.service.Metrics;
 import edu.ccrm.service.StudentService;
 import edu.ccrm.service.TranscriptService;
+import edu.ccrm.util.EventSink;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Scanner;
 import java.util.UUID;
@@ -22,16 +32,38 @@ public class MainMenu {
     private static final StudentService studentService = new StudentService();
     private static final CourseService courseService = new CourseService();
     private static final EnrollmentService enrollmentService = new EnrollmentService(studentService, courseService);
-    private static final TranscriptService transcriptService = new TranscriptService();
+    private static final TranscriptService transcriptService = new TranscriptService(studentService);
     private static final ImportExportService importExportService = new ImportExportService(studentService, courseService, enrollmentService);
     private static final BackupService backupService = new BackupService();
+    private static final SnapshotService snapshotService = new SnapshotService(studentService, courseService, enrollmentService);
+    private static Journal journal; // null if the data folder could not be journaled
 
     public static void main(String[] args) {
         AppConfig cfg = AppConfig.getInstance(); // Singleton usage
         System.out.println("Data folder: " + cfg.getDataFolder());
 
-        // demo data
-        seedDemoData();
+        // restore previous state (snapshot + journal), then log every change from here on
+        Path dataDir = Paths.get(cfg.getDataFolder());
+        try {
+            long replayed = Journal.recover(dataDir, snapshotService, studentService, courseService, enrollmentService);
+            if (replayed > 0) System.out.println("Replayed " + replayed + " journal records.");
+            journal = Journal.open(dataDir, Journal.Durability.GROUP);
+        } catch (IOException e) {
+            System.out.println("Journal unavailable, changes will not be persisted: " + e.getMessage());
+        }
+
+        if (journal != null) journal.attach(studentService, courseService, enrollmentService);
+
+        // services are silent by default; the menu shows their notices inline with its prompts
+        EventSink console = EventSink.console(System.out, EventSink.Level.INFO);
+        studentService.setEventSink(console);
+        courseService.setEventSink(console);
+        enrollmentService.setEventSink(console);
+        transcriptService.setEventSink(console);
+        importExportService.setEventSink(console);
+
+        // demo data (first start only)
+        if (studentService.count() == 0) seedDemoData();
 
         Scanner scanner = new Scanner(System.in);
         mainLoop:
@@ -64,6 +96,14 @@ public class MainMenu {
         }
 
         scanner.close();
+        if (journal != null) {
+            try {
+                journal.checkpoint(snapshotService);
+                journal.close();
+            } catch (IOException e) {
+                System.out.println("Checkpoint failed, journal kept for next start: " + e.getMessage());
+            }
+        }
     }
 
     // ---------------- STUDENT MENU ----------------
@@ -76,6 +116,7 @@ public class MainMenu {
             System.out.println("3. Update Student Email");
             System.out.println("4. Deactivate Student");
             System.out.println("5. Print Student Profile");
+            System.out.println("6. Search Students by Name");
             System.out.println("0. Back");
             System.out.print("Choice: ");
             String c = scanner.nextLine().trim();
@@ -112,6 +153,10 @@ public class MainMenu {
                             () -> System.out.println("Student not found.")
                     );
                 }
+                case "6" -> {
+                    System.out.print("Name (or start of it): ");
+                    studentService.searchByName(scanner.nextLine(), 20).forEach(System.out::println);
+                }
                 case "0" -> back = true;
                 default -> System.out.println("Invalid option.");
             }
@@ -127,6 +172,8 @@ public class MainMenu {
             System.out.println("2. List Courses");
             System.out.println("3. Search Courses by Department");
             System.out.println("4. Assign Instructor to Course");
+            System.out.println("5. Search Courses (combined filters)");
+            System.out.println("6. Search Courses by Title");
             System.out.println("0. Back");
             System.out.print("Choice: ");
             String c = scanner.nextLine().trim();
@@ -143,10 +190,13 @@ public class MainMenu {
                     String dept = scanner.nextLine();
                     System.out.print("Semester (SPRING,SUMMER,FALL,WINTER): ");
                     Semester sem = Semester.valueOf(scanner.nextLine().trim().toUpperCase());
+                    System.out.print("Capacity (0 = unlimited): ");
+                    String cap = scanner.nextLine().trim();
                     Course course = new Course.Builder(code, title)
                             .credits(credits)
                             .department(dept)
                             .semester(sem)
+                            .capacity(cap.isEmpty() ? 0 : Integer.parseInt(cap))
                             .build();
                     courseService.addCourse(course);
                 }
@@ -168,6 +218,29 @@ public class MainMenu {
                     Instructor ins = new Instructor(UUID.randomUUID().toString(), name, email, d);
                     courseService.assignInstructor(code, ins);
                 }
+                case "5" -> {
+                    CourseQuery.Builder q = new CourseQuery.Builder();
+                    System.out.print("Department (blank = any): ");
+                    String d = scanner.nextLine().trim();
+                    if (!d.isEmpty()) q.department(d);
+                    System.out.print("Semester (blank = any): ");
+                    String sem = scanner.nextLine().trim();
+                    if (!sem.isEmpty()) q.semester(Semester.valueOf(sem.toUpperCase()));
+                    System.out.print("Instructor full name (blank = any): ");
+                    String ins = scanner.nextLine().trim();
+                    if (!ins.isEmpty()) q.instructor(ins);
+                    System.out.print("Min credits (blank = any): ");
+                    String min = scanner.nextLine().trim();
+                    if (!min.isEmpty()) q.minCredits(Integer.parseInt(min));
+                    System.out.print("Max credits (blank = any): ");
+                    String max = scanner.nextLine().trim();
+                    if (!max.isEmpty()) q.maxCredits(Integer.parseInt(max));
+                    courseService.search(q.build()).forEach(System.out::println);
+                }
+                case "6" -> {
+                    System.out.print("Title (or start of it): ");
+                    courseService.searchByTitle(scanner.nextLine(), 20).forEach(System.out::println);
+                }
                 case "0" -> back = true;
                 default -> System.out.println("Invalid option.");
             }
@@ -183,6 +256,7 @@ public class MainMenu {
             System.out.println("2. Unenroll Student");
             System.out.println("3. Record Grade");
             System.out.println("4. Print Transcript (student)");
+            System.out.println("5. Show Course Waitlist");
             System.out.println("0. Back");
             System.out.print("Choice: ");
             String c = scanner.nextLine().trim();
@@ -220,6 +294,15 @@ public class MainMenu {
                     String reg = scanner.nextLine();
                     transcriptService.printTranscriptByRegNo(reg); // ✅ now uses TranscriptService
                 }
+                case "5" -> {
+                    System.out.print("Course code: ");
+                    String code = scanner.nextLine();
+                    var waiting = enrollmentService.waitlist(code);
+                    if (waiting.isEmpty()) System.out.println("Waitlist is empty.");
+                    for (int i = 0; i < waiting.size(); i++) {
+                        System.out.println((i + 1) + ". " + waiting.get(i));
+                    }
+                }
                 case "0" -> back = true;
                 default -> System.out.println("Invalid option.");
             }
@@ -232,6 +315,9 @@ public class MainMenu {
         System.out.println("1. Import students from CSV");
         System.out.println("2. Import courses from CSV");
         System.out.println("3. Export all data");
+        System.out.println("4. Save binary snapshot");
+        System.out.println("5. Load binary snapshot");
+        System.out.println("6. Generate transcripts for all students");
         System.out.println("0. Back");
         System.out.print("Choice: ");
         String c = scanner.nextLine().trim();
@@ -241,18 +327,42 @@ public class MainMenu {
                 case "1" -> {
                     System.out.print("Path to students CSV: ");
                     String p = scanner.nextLine();
-                    importExportService.importStudents(Paths.get(p));
+                    bulkLoad(() -> {
+                        importExportService.importStudents(Paths.get(p));
+                        return null;
+                    });
                 }
                 case "2" -> {
                     System.out.print("Path to courses CSV: ");
                     String p = scanner.nextLine();
-                    importExportService.importCourses(Paths.get(p));
+                    bulkLoad(() -> {
+                        importExportService.importCourses(Paths.get(p));
+                        return null;
+                    });
                 }
                 case "3" -> {
                     System.out.print("Export directory path: ");
                     String p = scanner.nextLine();
                     importExportService.exportAll(Paths.get(p));
                 }
+                case "4" -> {
+                    System.out.print("Snapshot file path: ");
+                    String p = scanner.nextLine();
+                    System.out.println("Snapshot written (" + snapshotService.save(Paths.get(p)) + " bytes).");
+                }
+                case "5" -> {
+                    System.out.print("Snapshot file path: ");
+                    String p = scanner.nextLine();
+                    System.out.println("Loaded " + bulkLoad(() -> snapshotService.load(Paths.get(p))) + " records.");
+                }
+                case "6" -> {
+                    System.out.print("Output directory path: ");
+                    String p = scanner.nextLine();
+                    System.out.print("One file per student? (y/N): ");
+                    TranscriptJob.Layout layout = scanner.nextLine().trim().equalsIgnoreCase("y")
+                            ? TranscriptJob.Layout.PER_STUDENT : TranscriptJob.Layout.SHARDED;
+                    System.out.println(new TranscriptJob(studentService).run(Paths.get(p), layout));
+                }
                 case "0" -> {}
                 default -> System.out.println("Invalid option.");
             }
@@ -261,18 +371,45 @@ public class MainMenu {
         }
     }
 
+    // bulk loads skip per-row journaling and are made durable by one checkpoint instead
+    private static <T> T bulkLoad(Journal.BulkLoad<T> load) throws IOException {
+        return journal == null ? load.run() : journal.bulkLoad(snapshotService, load);
+    }
+
     // ---------------- BACKUP MENU ----------------
     private static void backupMenu(Scanner scanner) {
+        System.out.println("\n--- Backup ---");
+        System.out.println("1. Incremental folder backup");
+        System.out.println("2. Compressed archive backup");
+        System.out.println("3. Restore archive");
+        System.out.print("Choice: ");
+        String mode = scanner.nextLine().trim();
+        if (mode.equals("3")) {
+            System.out.print("Archive path: ");
+            String zip = scanner.nextLine();
+            System.out.print("Restore into folder: ");
+            String target = scanner.nextLine();
+            try {
+                System.out.println("Restored " + backupService.restoreArchive(Paths.get(zip), Paths.get(target)) + " files.");
+            } catch (Exception e) {
+                System.out.println("Restore failed: " + e.getMessage());
+            }
+            return;
+        }
         System.out.print("Enter source export folder path: ");
         String src = scanner.nextLine();
         System.out.print("Enter backup base folder path: ");
         String base = scanner.nextLine();
 
         try {
-            var backupDir = backupService.backup(Paths.get(src), Paths.get(base));
+            var backupDir = mode.equals("2")
+                    ? backupService.backupArchive(Paths.get(src), Paths.get(base))
+                    : backupService.backup(Paths.get(src), Paths.get(base));
             System.out.println("Backup created at: " + backupDir);
             long size = backupService.calculateBackupSize(backupDir);
             System.out.println("Backup size (bytes): " + size);
+            BackupManifest manifest = BackupManifest.read(backupDir);
+            if (manifest != null) System.out.println("New bytes copied: " + manifest.getCopiedBytes());
         } catch (Exception e) {
             System.out.println("Backup failed: " + e.getMessage());
         }
@@ -284,6 +421,9 @@ public class MainMenu {
         System.out.println("1. GPA distribution");
         System.out.println("2. Top students by GPA");
         System.out.println("3. All student transcript summaries");
+        System.out.println("4. GPA distribution by department");
+        System.out.println("5. Operation metrics");
+        System.out.println("6. Dump operation metrics to file");
         System.out.println("0. Back");
         System.out.print("Choice: ");
         String c = scanner.nextLine().trim();
@@ -291,6 +431,22 @@ public class MainMenu {
             case "1" -> enrollmentService.gpaDistribution().forEach((k, v) -> System.out.println(k + " -> " + v));
             case "2" -> enrollmentService.topStudents(5).forEach(System.out::println);
             case "3" -> studentService.listStudents().forEach(s -> System.out.println(transcriptService.transcriptSummary(s)));
+            case "4" -> {
+                System.out.print("Department: ");
+                enrollmentService.gpaHistogram().department(scanner.nextLine().trim(), GpaHistogram.DEFAULT_EDGES)
+                        .forEach((k, v) -> System.out.println(k + " -> " + v));
+            }
+            case "5" -> System.out.print(Metrics.shared().snapshot());
+            case "6" -> {
+                System.out.print("Output file path: ");
+                Path file = Paths.get(scanner.nextLine().trim());
+                try {
+                    Metrics.shared().snapshot().writeTo(file);
+                    System.out.println("Metrics written to " + file.toAbsolutePath());
+                } catch (IOException e) {
+                    System.out.println("Could not write metrics: " + e.getMessage());
+                }
+            }
             case "0" -> {}
             default -> System.out.println("Invalid");
         }
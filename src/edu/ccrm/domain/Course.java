@@ -1,17 +1,22 @@
 package edu.ccrm.domain;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Course class with Builder pattern and a static nested class Syllabus.
+ * A capacity of 0 means unlimited seats; seats are reserved with a CAS on an atomic counter.
  */
 public class Course {
 
     private final String code;
     private final String title;
     private final int credits;
-    private Instructor instructor;
+    private volatile Instructor instructor;
     private final Semester semester;
     private final String department;
-    private boolean active = true;
+    private volatile boolean active = true;
+    private final int capacity;
+    private final AtomicInteger seatsTaken = new AtomicInteger();
 
     private Course(Builder b) {
         this.code = b.code;
@@ -20,6 +25,7 @@ public class Course {
         this.instructor = b.instructor;
         this.semester = b.semester;
         this.department = b.department;
+        this.capacity = b.capacity;
     }
 
     public String getCode() { return code; }
@@ -31,10 +37,35 @@ public class Course {
     public String getDepartment() { return department; }
     public boolean isActive() { return active; }
     public void setActive(boolean a) { this.active = a; }
+    public int getCapacity() { return capacity; }
+    public boolean hasCapacityLimit() { return capacity > 0; }
+    public int getSeatsTaken() { return seatsTaken.get(); }
+    public int getSeatsFree() { return hasCapacityLimit() ? Math.max(capacity - seatsTaken.get(), 0) : Integer.MAX_VALUE; }
+
+    /**
+     * Claim one seat; returns false if the course is full.
+     */
+    public boolean tryReserveSeat() {
+        if (!hasCapacityLimit()) {
+            seatsTaken.incrementAndGet();
+            return true;
+        }
+        while (true) {
+            int taken = seatsTaken.get();
+            if (taken >= capacity) return false;
+            if (seatsTaken.compareAndSet(taken, taken + 1)) return true;
+        }
+    }
+
+    public void releaseSeat() { seatsTaken.decrementAndGet(); }
+
+    // counts an already existing enrollment (e.g. one restored from a snapshot) against the capacity
+    public void restoreSeat() { seatsTaken.incrementAndGet(); }
 
     @Override
     public String toString() {
-        return code + " - " + title + " (" + credits + " cr) [" + department + ", " + semester + "]";
+        return code + " - " + title + " (" + credits + " cr) [" + department + ", " + semester + "]"
+                + (hasCapacityLimit() ? " seats " + seatsTaken.get() + "/" + capacity : "");
     }
 
     // static nested class
@@ -57,6 +88,7 @@ public class Course {
         private Instructor instructor = null;
         private Semester semester = Semester.FALL;
         private String department = "General";
+        private int capacity = 0;
 
         public Builder(String code, String title) {
             this.code = code;
@@ -66,6 +98,7 @@ public class Course {
         public Builder instructor(Instructor i) { this.instructor = i; return this; }
         public Builder semester(Semester s) { this.semester = s; return this; }
         public Builder department(String d) { this.department = d; return this; }
+        public Builder capacity(int c) { this.capacity = Math.max(c, 0); return this; }
         public Course build() { return new Course(this); }
     }
 }
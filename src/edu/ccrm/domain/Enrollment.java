@@ -8,20 +8,33 @@ import java.time.LocalDateTime;
 public class Enrollment {
     private final Student student;
     private final Course course;
-    private Grade grade;
+    private volatile Grade grade;
     private final LocalDateTime enrolledOn;
+    private boolean attached; // true while held by the student's enrollment list
 
     public Enrollment(Student s, Course c) {
+        this(s, c, LocalDateTime.now());
+    }
+
+    // used when restoring saved state
+    public Enrollment(Student s, Course c, LocalDateTime enrolledOn) {
         this.student = s;
         this.course = c;
-        this.enrolledOn = LocalDateTime.now();
+        this.enrolledOn = enrolledOn;
     }
 
     public Student getStudent() { return student; }
     public Course getCourse() { return course; }
     public Grade getGrade() { return grade; }
-    public void setGrade(Grade g) { this.grade = g; }
+    public void setGrade(Grade g) {
+        synchronized (student) {
+            Grade old = this.grade;
+            this.grade = g;
+            if (attached) student.onGradeChanged(old, g, course.getCredits());
+        }
+    }
     public LocalDateTime getEnrolledOn() { return enrolledOn; }
+    void setAttached(boolean a) { this.attached = a; }
 
     @Override
     public String toString() {
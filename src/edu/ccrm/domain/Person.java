@@ -8,7 +8,7 @@ import java.time.LocalDateTime;
 public abstract class Person {
     protected final String id;
     protected String fullName;
-    protected String email;
+    protected volatile String email;
     protected final LocalDateTime createdAt;
 
     public Person(String id, String fullName, String email) {
@@ -1,8 +1,8 @@
 package edu.ccrm.domain;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Student entity. Contains inner class Note as an example of non-static inner class.
@@ -10,9 +10,13 @@ import java.util.List;
 public class Student extends Person {
 
     private final String regNo;
-    private boolean active;
+    private volatile boolean active;
     private final LocalDateTime registeredOn;
-    private final List<Enrollment> enrollments = new ArrayList<>();
+    private final List<Enrollment> enrollments = new CopyOnWriteArrayList<>();
+    // running totals kept in step with enrollments and grades; guarded by this
+    private int attemptedCredits;
+    private int gradedCredits;
+    private int gradePoints;
 
     public Student(String id, String fullName, String email, String regNo) {
         super(id, fullName, email);
@@ -30,17 +34,50 @@ public class Student extends Person {
     public boolean isActive() { return active; }
     public void setActive(boolean a) { this.active = a; }
 
-    public void addEnrollment(Enrollment e) { enrollments.add(e); }
-    public void removeEnrollment(Enrollment e) { enrollments.remove(e); }
+    public synchronized void addEnrollment(Enrollment e) {
+        enrollments.add(e);
+        e.setAttached(true);
+        attemptedCredits += e.getCourse().getCredits();
+        onGradeChanged(null, e.getGrade(), e.getCourse().getCredits());
+    }
+
+    public synchronized void removeEnrollment(Enrollment e) {
+        if (!enrollments.remove(e)) return;
+        e.setAttached(false);
+        attemptedCredits -= e.getCourse().getCredits();
+        onGradeChanged(e.getGrade(), null, e.getCourse().getCredits());
+    }
+
     public List<Enrollment> getEnrollments() { return enrollments; }
 
+    // called by Enrollment.setGrade so the totals never need a full recompute
+    synchronized void onGradeChanged(Grade oldGrade, Grade newGrade, int credits) {
+        if (oldGrade != null) {
+            gradedCredits -= credits;
+            gradePoints -= oldGrade.getPoints() * credits;
+        }
+        if (newGrade != null) {
+            gradedCredits += credits;
+            gradePoints += newGrade.getPoints() * credits;
+        }
+    }
+
+    public synchronized int getAttemptedCredits() { return attemptedCredits; }
+    public synchronized int getGradedCredits() { return gradedCredits; }
+    public synchronized int getGradePoints() { return gradePoints; }
+    public synchronized double getGpa() { return gradedCredits == 0 ? 0.0 : (double) gradePoints / gradedCredits; }
+
     @Override
     public String toString() {
         return regNo + " - " + fullName + " (" + (active ? "Active" : "Inactive") + ")";
     }
 
     public String profileString() {
-        StringBuilder sb = new StringBuilder();
+        return appendProfile(new StringBuilder(256)).toString();
+    }
+
+    /** Appends the profile to a caller's (reusable) buffer. */
+    public StringBuilder appendProfile(StringBuilder sb) {
         sb.append("Student Profile\n");
         sb.append("RegNo: ").append(regNo).append("\n");
         sb.append("Name: ").append(fullName).append("\n");
@@ -49,9 +86,9 @@ public class Student extends Person {
         sb.append("Enrollments:\n");
         for (Enrollment en : enrollments) {
             sb.append(" - ").append(en.getCourse().getCode()).append(" | Grade: ")
-                    .append(en.getGrade() == null ? "N/A" : en.getGrade()).append("\n");
+                    .append(en.getGrade() == null ? "N/A" : en.getGrade().name()).append("\n");
         }
-        return sb.toString();
+        return sb;
     }
 
     // inner class example: a quick note tied to a particular student instance
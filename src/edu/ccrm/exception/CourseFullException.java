@@ -0,0 +1,10 @@
+package edu.ccrm.exception;
+
+/**
+ * Checked exception thrown when a course has no free seats.
+ */
+public class CourseFullException extends Exception {
+    public CourseFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package edu.ccrm.exception;
+
+/**
+ * Checked exception thrown when a referenced student or course does not exist.
+ */
+public class NotFoundException extends Exception {
+    public NotFoundException(String message) {
+        super(message);
+    }
+}
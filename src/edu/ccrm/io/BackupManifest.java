@@ -0,0 +1,119 @@
+package edu.ccrm.io;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Contents of one backup directory: every file's SHA-256, size, mtime and relative path,
+ * plus totals in the header so size queries never touch the files themselves.
+ *
+ * Stored as {@value #FILE_NAME} in the backup root. Format:
+ * <pre>
+ * # ccrm-backup 1
+ * total=&lt;bytes&gt;
+ * copied=&lt;bytes&gt;
+ * files=&lt;n&gt;
+ * &lt;sha256&gt;,&lt;size&gt;,&lt;mtimeMillis&gt;,&lt;relative/path&gt;
+ * </pre>
+ * The path comes last so it may contain commas. The manifest is written after all files,
+ * so a backup without one is incomplete and never used as a base.
+ */
+public class BackupManifest {
+
+    public static final String FILE_NAME = "backup.manifest";
+    private static final String HEADER = "# ccrm-backup 1";
+
+    public static class Entry {
+        private final String hash;
+        private final long size;
+        private final long mtime;
+        private final String path;
+
+        public Entry(String hash, long size, long mtime, String path) {
+            this.hash = hash;
+            this.size = size;
+            this.mtime = mtime;
+            this.path = path;
+        }
+
+        public String getHash() { return hash; }
+        public long getSize() { return size; }
+        public long getMtime() { return mtime; }
+        public String getPath() { return path; }
+    }
+
+    private final Map<String, Entry> byPath = new LinkedHashMap<>();
+    private long totalBytes;
+    private long copiedBytes;
+
+    void add(Entry e, boolean copied) {
+        byPath.put(e.getPath(), e);
+        totalBytes += e.getSize();
+        if (copied) copiedBytes += e.getSize();
+    }
+
+    public Entry get(String relPath) { return byPath.get(relPath); }
+    public Collection<Entry> entries() { return byPath.values(); }
+    public int getFileCount() { return byPath.size(); }
+    /** Logical size of the backup (sum of all file sizes). */
+    public long getTotalBytes() { return totalBytes; }
+    /** Bytes actually copied for this backup; the rest is hard-linked or shared. */
+    public long getCopiedBytes() { return copiedBytes; }
+
+    void write(Path backupDir) throws IOException {
+        Path tmp = backupDir.resolve(FILE_NAME + ".tmp");
+        try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            w.write(HEADER); w.newLine();
+            w.write("total=" + totalBytes); w.newLine();
+            w.write("copied=" + copiedBytes); w.newLine();
+            w.write("files=" + byPath.size()); w.newLine();
+            for (Entry e : byPath.values()) {
+                w.write(e.getHash() + "," + e.getSize() + "," + e.getMtime() + "," + e.getPath());
+                w.newLine();
+            }
+        }
+        Files.move(tmp, backupDir.resolve(FILE_NAME), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Full manifest of a backup, or null if the directory has none. */
+    public static BackupManifest read(Path backupDir) throws IOException {
+        Path file = backupDir.resolve(FILE_NAME);
+        if (!Files.isRegularFile(file)) return null;
+        BackupManifest m = new BackupManifest();
+        try (BufferedReader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(r.readLine())) throw new IOException("Not a backup manifest: " + file);
+            String line;
+            long copied = 0;
+            while ((line = r.readLine()) != null) {
+                int a = line.indexOf(',');
+                if (a < 0) {
+                    if (line.startsWith("copied=")) copied = Long.parseLong(line.substring(7));
+                    continue; // total and files are recomputed from the entries
+                }
+                int b = line.indexOf(',', a + 1), c = line.indexOf(',', b + 1);
+                if (a < 0 || b < 0 || c < 0) throw new IOException("Bad manifest line: " + line);
+                m.add(new Entry(line.substring(0, a), Long.parseLong(line.substring(a + 1, b)),
+                        Long.parseLong(line.substring(b + 1, c)), line.substring(c + 1)), false);
+            }
+            m.copiedBytes = copied;
+        }
+        return m;
+    }
+
+    /** Total logical size from the manifest header only, or -1 if there is no manifest. */
+    public static long readTotal(Path backupDir) throws IOException {
+        Path file = backupDir.resolve(FILE_NAME);
+        if (!Files.isRegularFile(file)) return -1;
+        try (BufferedReader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(r.readLine())) return -1;
+            String total = r.readLine();
+            return total != null && total.startsWith("total=") ? Long.parseLong(total.substring(6)) : -1;
+        }
+    }
+}
@@ -1,51 +1,182 @@
 package edu.ccrm.io;
 
+import edu.ccrm.service.Metrics;
+import edu.ccrm.util.DirectorySizeWalker;
+
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.*;
 
 /**
  * BackupService uses NIO.2 Path/Files and copy/move operations.
+ *
+ * Backups are incremental: every file is identified by its SHA-256, and content already
+ * present in the previous backup (or earlier in the same one) is hard-linked instead of
+ * copied. Files whose size and mtime match the previous manifest are not even re-hashed.
+ * Falls back to a plain copy where the file system does not support hard links.
  */
 public class BackupService {
 
+    private static final String PREFIX = "backup_";
+    private static final int HASH_BUFFER = 64 * 1024;
+
+    private static final int SIZE_CACHE_DIRS = 4096;
+
+    // backup folders are never modified after they are written, so their listings can be cached
+    private final DirectorySizeWalker backupSizes = new DirectorySizeWalker(Runtime.getRuntime().availableProcessors(), SIZE_CACHE_DIRS);
+
+    private final Metrics metrics = Metrics.shared();
+
     public Path backup(Path sourceExportDir, Path backupBaseDir) throws IOException {
+        return metrics.time(Metrics.Op.BACKUP, () -> incremental(sourceExportDir, backupBaseDir));
+    }
+
+    private Path incremental(Path sourceExportDir, Path backupBaseDir) throws IOException {
         if (!Files.exists(sourceExportDir) || !Files.isDirectory(sourceExportDir)) {
             throw new IOException("Source export folder doesn't exist: " + sourceExportDir);
         }
         if (!Files.exists(backupBaseDir)) Files.createDirectories(backupBaseDir);
-        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-        Path dest = backupBaseDir.resolve("backup_" + stamp);
-        Files.createDirectories(dest);
+        Path previous = latestBackup(backupBaseDir);
+        BackupManifest base = previous == null ? null : BackupManifest.read(previous);
+        Path dest = newBackupDir(backupBaseDir);
+
+        // content hash -> file already in a backup with that content
+        Map<String, Path> known = new HashMap<>();
+        if (base != null) {
+            for (BackupManifest.Entry e : base.entries()) known.putIfAbsent(e.getHash(), previous.resolve(e.getPath()));
+        }
+
+        BackupManifest manifest = new BackupManifest();
+        ByteBuffer buf = ByteBuffer.allocate(HASH_BUFFER);
+        Files.walkFileTree(sourceExportDir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(dest.resolve(sourceExportDir.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path src, BasicFileAttributes attrs) throws IOException {
+                if (!attrs.isRegularFile()) return FileVisitResult.CONTINUE;
+                String rel = sourceExportDir.relativize(src).toString().replace('\\', '/');
+                long size = attrs.size();
+                long mtime = attrs.lastModifiedTime().toMillis();
+
+                BackupManifest.Entry old = base == null ? null : base.get(rel);
+                String hash = old != null && old.getSize() == size && old.getMtime() == mtime
+                        ? old.getHash() : sha256(src, buf);
 
-        // copy files recursively
-        Files.walk(sourceExportDir).forEach(src -> {
-            try {
-                Path rel = sourceExportDir.relativize(src);
                 Path target = dest.resolve(rel);
-                if (Files.isDirectory(src)) {
-                    if (!Files.exists(target)) Files.createDirectories(target);
-                } else {
-                    Files.copy(src, target, StandardCopyOption.REPLACE_EXISTING);
+                Path same = known.get(hash);
+                boolean copied = same == null || !link(target, same);
+                if (copied) {
+                    Files.copy(src, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                    known.put(hash, target);
                 }
-            } catch (Exception e) {
-                throw new RuntimeException(e);
+                manifest.add(new BackupManifest.Entry(hash, size, mtime, rel), copied);
+                return FileVisitResult.CONTINUE;
             }
         });
-
+        manifest.write(dest);
         return dest;
     }
 
+    /**
+     * Full backup as a single compressed archive {@code backup_<stamp>.zip}, files deflated
+     * in parallel across all cores.
+     */
+    public Path backupArchive(Path sourceExportDir, Path backupBaseDir) throws IOException {
+        return metrics.time(Metrics.Op.BACKUP_ARCHIVE, () -> archive(sourceExportDir, backupBaseDir));
+    }
+
+    private Path archive(Path sourceExportDir, Path backupBaseDir) throws IOException {
+        if (!Files.isDirectory(sourceExportDir)) {
+            throw new IOException("Source export folder doesn't exist: " + sourceExportDir);
+        }
+        Files.createDirectories(backupBaseDir);
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        Path zip = backupBaseDir.resolve(PREFIX + stamp + ".zip");
+        for (int n = 1; Files.exists(zip); n++) zip = backupBaseDir.resolve(PREFIX + stamp + "_" + n + ".zip");
+        new ZipArchiver().archive(sourceExportDir, zip);
+        return zip;
+    }
+
+    /** Unpack a backup archive into {@code targetDir}; returns the number of files restored. */
+    public int restoreArchive(Path archive, Path targetDir) throws IOException {
+        return metrics.time(Metrics.Op.RESTORE_ARCHIVE, () -> {
+            if (!Files.isRegularFile(archive)) throw new IOException("Backup archive doesn't exist: " + archive);
+            return new ZipArchiver().extract(archive, targetDir);
+        });
+    }
+
     public long calculateBackupSize(Path folder) throws IOException {
-        final long[] total = {0L};
-        Files.walk(folder).forEach(p -> {
+        long fromManifest = BackupManifest.readTotal(folder);
+        if (fromManifest >= 0) return fromManifest;
+        return backupSizes.size(folder);
+    }
+
+    /** Most recent complete backup (one with a manifest) under the base dir, or null. */
+    Path latestBackup(Path backupBaseDir) throws IOException {
+        Path latest = null;
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(backupBaseDir, PREFIX + "*")) {
+            for (Path d : dirs) {
+                if (!Files.isRegularFile(d.resolve(BackupManifest.FILE_NAME))) continue;
+                if (latest == null || compareNames(d, latest) > 0) latest = d;
+            }
+        }
+        return latest;
+    }
+
+    private static int compareNames(Path a, Path b) {
+        // backup_yyyyMMdd_HHmmss[_n]: lexical order except that a longer suffix (_10 vs _9) is newer
+        String x = a.getFileName().toString(), y = b.getFileName().toString();
+        boolean sameStamp = x.regionMatches(0, y, 0, PREFIX.length() + 15);
+        return sameStamp && x.length() != y.length() ? Integer.compare(x.length(), y.length()) : x.compareTo(y);
+    }
+
+    private static Path newBackupDir(Path backupBaseDir) throws IOException {
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+        Path dest = backupBaseDir.resolve(PREFIX + stamp);
+        for (int n = 1; ; n++) {
             try {
-                if (Files.isRegularFile(p)) total[0] += Files.size(p);
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+                return Files.createDirectory(dest);
+            } catch (FileAlreadyExistsException e) {
+                dest = backupBaseDir.resolve(PREFIX + stamp + "_" + n);
             }
-        });
-        return total[0];
+        }
+    }
+
+    private static boolean link(Path target, Path existing) throws IOException {
+        try {
+            Files.createLink(target, existing);
+            return true;
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            return false; // no hard links here (or across devices): caller copies instead
+        }
+    }
+
+    static String sha256(Path file, ByteBuffer buf) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every JRE ships SHA-256
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            buf.clear();
+            while (ch.read(buf) != -1) {
+                buf.flip();
+                md.update(buf);
+                buf.clear();
+            }
+        }
+        return HexFormat.of().formatHex(md.digest());
     }
 }
@@ -0,0 +1,31 @@
+package edu.ccrm.io;
+
+/**
+ * Splits a comma separated line into trimmed fields with indexOf, no regex.
+ * The output array is supplied by the caller so it can be reused across lines.
+ */
+public class CsvFields {
+
+    /**
+     * Fill {@code out} with the first out.length fields of {@code line}; extra fields are
+     * ignored. Returns the number of fields stored.
+     */
+    public static int split(String line, String[] out) {
+        int n = 0;
+        int start = 0;
+        while (n < out.length) {
+            int comma = line.indexOf(',', start);
+            int end = comma < 0 ? line.length() : comma;
+            out[n++] = trimmed(line, start, end);
+            if (comma < 0) break;
+            start = comma + 1;
+        }
+        return n;
+    }
+
+    private static String trimmed(String line, int from, int to) {
+        while (from < to && line.charAt(from) <= ' ') from++;
+        while (to > from && line.charAt(to - 1) <= ' ') to--;
+        return line.substring(from, to);
+    }
+}
@@ -0,0 +1,42 @@
+package edu.ccrm.io;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rows written per export file and overall throughput of one export run.
+ */
+public class ExportReport {
+    private final Path targetDir;
+    private final Map<String, Long> rowsPerFile = new LinkedHashMap<>();
+    private long elapsedNanos;
+
+    public ExportReport(Path targetDir) {
+        this.targetDir = targetDir;
+    }
+
+    synchronized void wrote(String file, long rows) { rowsPerFile.merge(file, rows, Long::sum); }
+    void finish(long elapsedNanos) { this.elapsedNanos = elapsedNanos; }
+
+    public Path getTargetDir() { return targetDir; }
+    public synchronized Map<String, Long> getRowsPerFile() { return Map.copyOf(rowsPerFile); }
+
+    public synchronized long getTotalRows() {
+        long total = 0;
+        for (long n : rowsPerFile.values()) total += n;
+        return total;
+    }
+
+    public long getElapsedMillis() { return elapsedNanos / 1_000_000; }
+
+    public long getRowsPerSecond() {
+        return elapsedNanos == 0 ? getTotalRows() : getTotalRows() * 1_000_000_000L / elapsedNanos;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "Exported " + rowsPerFile + " to " + targetDir.toAbsolutePath()
+                + " in " + getElapsedMillis() + " ms (" + getRowsPerSecond() + " rows/s)";
+    }
+}
@@ -6,24 +6,39 @@ import edu.ccrm.domain.Semester;
 import edu.ccrm.domain.Student;
 import edu.ccrm.service.CourseService;
 import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.Metrics;
 import edu.ccrm.service.StudentService;
+import edu.ccrm.util.EventSink;
 
-import java.io.IOException;
+import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 /**
  * Simple CSV-like import/export using NIO.2 and Streams.
  * Students CSV format: regNo,fullName,email
  * Courses CSV format: code,title,credits,department,semester
+ * Imports stream the file through a buffered reader and insert in batches, so memory
+ * stays flat regardless of file size; results are reported as an {@link ImportReport}.
  */
 public class ImportExportService {
 
+    public static final int DEFAULT_BATCH_SIZE = 10_000;
+    private static final int READ_BUFFER = 1 << 16;
+    private static final int WRITE_BUFFER = 1 << 16;
+
     private final StudentService studentService;
     private final CourseService courseService;
     private final EnrollmentService enrollmentService;
+    private volatile EventSink events = EventSink.NONE;
+    private final Metrics metrics = Metrics.shared();
 
     public ImportExportService(StudentService ss, CourseService cs, EnrollmentService es) {
         this.studentService = ss;
@@ -31,55 +46,300 @@ public class ImportExportService {
         this.enrollmentService = es;
     }
 
+    public void setEventSink(EventSink sink) {
+        this.events = sink == null ? EventSink.NONE : sink;
+    }
+
     public void importStudents(Path csv) throws IOException {
-        List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
-        for (String line : lines) {
-            String[] parts = line.split(",", -1);
-            if (parts.length >= 3) {
-                Student s = new Student("imp-" + parts[0].trim(), parts[1].trim(), parts[2].trim(), parts[0].trim());
-                studentService.addStudent(s);
+        events.info("", importStudents(csv, DEFAULT_BATCH_SIZE, null));
+    }
+
+    public void importCourses(Path csv) throws IOException {
+        events.info("", importCourses(csv, DEFAULT_BATCH_SIZE, null));
+    }
+
+    /**
+     * Stream students from {@code csv}, inserting every {@code batchSize} rows.
+     * {@code progress} (may be null) is called with the running report after each batch.
+     */
+    public ImportReport importStudents(Path csv, int batchSize, Consumer<ImportReport> progress) throws IOException {
+        return metrics.time(Metrics.Op.IMPORT_STUDENTS, () -> streamStudents(csv, batchSize, progress));
+    }
+
+    public ImportReport importCourses(Path csv, int batchSize, Consumer<ImportReport> progress) throws IOException {
+        return metrics.time(Metrics.Op.IMPORT_COURSES, () -> streamCourses(csv, batchSize, progress));
+    }
+
+    private ImportReport streamStudents(Path csv, int batchSize, Consumer<ImportReport> progress) throws IOException {
+        ImportReport report = new ImportReport(csv.getFileName().toString());
+        List<Student> batch = new ArrayList<>(batchSize);
+        String[] f = new String[3];
+        try (BufferedReader in = newReader(csv)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                report.read(1);
+                Student s = CsvFields.split(line, f) == 3 ? parseStudent(f) : null;
+                if (s == null) {
+                    report.rejected(1);
+                    continue;
+                }
+                batch.add(s);
+                if (batch.size() >= batchSize) flushStudents(batch, report, progress);
             }
         }
+        flushStudents(batch, report, progress);
+        report.finish();
+        return report;
     }
 
-    public void importCourses(Path csv) throws IOException {
-        List<String> lines = Files.readAllLines(csv, StandardCharsets.UTF_8);
-        for (String line : lines) {
-            String[] p = line.split(",", -1);
-            if (p.length >= 5) {
-                Course c = new Course.Builder(p[0].trim(), p[1].trim())
-                        .credits(Integer.parseInt(p[2].trim()))
-                        .department(p[3].trim())
-                        .semester(Semester.valueOf(p[4].trim().toUpperCase()))
-                        .build();
-                courseService.addCourse(c);
+    private ImportReport streamCourses(Path csv, int batchSize, Consumer<ImportReport> progress) throws IOException {
+        ImportReport report = new ImportReport(csv.getFileName().toString());
+        List<Course> batch = new ArrayList<>(batchSize);
+        String[] f = new String[5];
+        try (BufferedReader in = newReader(csv)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                report.read(1);
+                Course c = CsvFields.split(line, f) == 5 ? parseCourse(f) : null;
+                if (c == null) {
+                    report.rejected(1);
+                    continue;
+                }
+                batch.add(c);
+                if (batch.size() >= batchSize) flushCourses(batch, report, progress);
             }
         }
+        flushCourses(batch, report, progress);
+        report.finish();
+        return report;
+    }
+
+    /**
+     * Parse students on {@code parallelism} cores; rows are still inserted in file order.
+     */
+    public ImportReport importStudentsParallel(Path csv, int parallelism) throws IOException {
+        return metrics.time(Metrics.Op.IMPORT_STUDENTS, () -> new ParallelCsvImporter<>(3, ImportExportService::parseStudent,
+                studentService::addStudents, parallelism, ParallelCsvImporter.DEFAULT_CHUNK_BYTES).run(csv));
+    }
+
+    public ImportReport importCoursesParallel(Path csv, int parallelism) throws IOException {
+        return metrics.time(Metrics.Op.IMPORT_COURSES, () -> new ParallelCsvImporter<>(5, ImportExportService::parseCourse,
+                courseService::addCourses, parallelism, ParallelCsvImporter.DEFAULT_CHUNK_BYTES).run(csv));
+    }
+
+    /**
+     * Import students through a memory-mapped reader: fields are decoded straight from the
+     * mapped file, with no per-line String or String[].
+     */
+    public ImportReport importStudentsMapped(Path csv, int batchSize) throws IOException {
+        return metrics.time(Metrics.Op.IMPORT_STUDENTS, () -> mapStudents(csv, batchSize));
+    }
+
+    public ImportReport importCoursesMapped(Path csv, int batchSize) throws IOException {
+        return metrics.time(Metrics.Op.IMPORT_COURSES, () -> mapCourses(csv, batchSize));
+    }
+
+    private ImportReport mapStudents(Path csv, int batchSize) throws IOException {
+        ImportReport report = new ImportReport(csv.getFileName().toString());
+        List<Student> batch = new ArrayList<>(batchSize);
+        long lines = new MappedCsvReader().read(csv, 3, row -> {
+            if (row.fieldCount() < 3 || row.isEmpty(0)) {
+                report.rejected(1);
+                return;
+            }
+            String regNo = row.string(0);
+            batch.add(new Student("imp-" + regNo, row.string(1), row.string(2), regNo));
+            if (batch.size() >= batchSize) flushStudents(batch, report, null);
+        });
+        flushStudents(batch, report, null);
+        report.read(lines);
+        report.finish();
+        return report;
+    }
+
+    private ImportReport mapCourses(Path csv, int batchSize) throws IOException {
+        ImportReport report = new ImportReport(csv.getFileName().toString());
+        List<Course> batch = new ArrayList<>(batchSize);
+        Semester[] semesters = Semester.values();
+        long lines = new MappedCsvReader().read(csv, 5, row -> {
+            Semester sem = row.fieldCount() < 5 || row.isEmpty(0) ? null : row.enumIgnoreCase(4, semesters);
+            if (sem == null) {
+                report.rejected(1);
+                return;
+            }
+            int credits;
+            try {
+                credits = row.parseInt(2);
+            } catch (NumberFormatException e) {
+                report.rejected(1);
+                return;
+            }
+            batch.add(new Course.Builder(row.string(0), row.string(1))
+                    .credits(credits)
+                    .department(row.string(3))
+                    .semester(sem)
+                    .build());
+            if (batch.size() >= batchSize) flushCourses(batch, report, null);
+        });
+        flushCourses(batch, report, null);
+        report.read(lines);
+        report.finish();
+        return report;
+    }
+
+    private static BufferedReader newReader(Path csv) throws IOException {
+        return new BufferedReader(new InputStreamReader(Files.newInputStream(csv), StandardCharsets.UTF_8), READ_BUFFER);
     }
 
-    public void exportAll(Path targetDir) throws IOException {
+    // fields: regNo, fullName, email
+    static Student parseStudent(String[] f) {
+        if (f[0].isEmpty()) return null;
+        return new Student("imp-" + f[0], f[1], f[2], f[0]);
+    }
+
+    // fields: code, title, credits, department, semester; null if malformed
+    static Course parseCourse(String[] f) {
+        if (f[0].isEmpty()) return null;
+        try {
+            return new Course.Builder(f[0], f[1])
+                    .credits(Integer.parseInt(f[2]))
+                    .department(f[3])
+                    .semester(Semester.valueOf(f[4].toUpperCase()))
+                    .build();
+        } catch (IllegalArgumentException e) { // also covers NumberFormatException
+            return null;
+        }
+    }
+
+    private void flushStudents(List<Student> batch, ImportReport report, Consumer<ImportReport> progress) {
+        if (batch.isEmpty()) return;
+        int added = studentService.addStudents(batch);
+        report.imported(added);
+        report.rejected(batch.size() - added);
+        batch.clear();
+        if (progress != null) progress.accept(report);
+    }
+
+    private void flushCourses(List<Course> batch, ImportReport report, Consumer<ImportReport> progress) {
+        if (batch.isEmpty()) return;
+        int added = courseService.addCourses(batch);
+        report.imported(added);
+        report.rejected(batch.size() - added);
+        batch.clear();
+        if (progress != null) progress.accept(report);
+    }
+
+    /**
+     * Stream every student, course and enrollment row to CSV. The three files are written
+     * concurrently, each through its own buffered writer, so memory use does not grow with
+     * the dataset.
+     * Enrollments CSV format: regNo,courseCode,grade,enrolledOn (grade is empty if not graded)
+     */
+    public ExportReport exportAll(Path targetDir) throws IOException {
+        return metrics.time(Metrics.Op.EXPORT, () -> writeAll(targetDir));
+    }
+
+    private ExportReport writeAll(Path targetDir) throws IOException {
         if (!Files.exists(targetDir)) Files.createDirectories(targetDir);
-        Path studFile = targetDir.resolve("students_export.csv");
-        Path courseFile = targetDir.resolve("courses_export.csv");
-        Path enrollFile = targetDir.resolve("enrollments_export.csv");
-
-        // students
-        List<String> studs = studentService.listStudents().stream()
-                .map(s -> String.join(",", s.getRegNo(), s.getFullName(), s.getEmail(), s.isActive() ? "active" : "inactive"))
-                .collect(Collectors.toList());
-        Files.write(studFile, studs, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-
-        // courses
-        List<String> courses = courseService.listCourses().stream()
-                .map(c -> String.join(",", c.getCode(), c.getTitle(), String.valueOf(c.getCredits()), c.getDepartment(), c.getSemester().name()))
-                .collect(Collectors.toList());
-        Files.write(courseFile, courses, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-
-        // enrollments -- simple view
-        List<String> enrolls = enrollmentService.topStudents(100).stream() // reusing top list to get students with gpa; for demo only
-                .collect(Collectors.toList());
-        Files.write(enrollFile, enrolls, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-
-        System.out.println("Exported to: " + targetDir.toAbsolutePath());
+        ExportReport report = new ExportReport(targetDir);
+        long start = System.nanoTime();
+
+        ExecutorService pool = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<?>> jobs = List.of(
+                    pool.submit(() -> writeStudents(targetDir.resolve("students_export.csv"), report)),
+                    pool.submit(() -> writeCourses(targetDir.resolve("courses_export.csv"), report)),
+                    pool.submit(() -> writeEnrollments(targetDir.resolve("enrollments_export.csv"), report)));
+            for (Future<?> job : jobs) {
+                try {
+                    job.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Export interrupted", e);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException io) throw io;
+                    throw new IOException("Export failed: " + e.getCause(), e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        report.finish(System.nanoTime() - start);
+        events.info("", report);
+        return report;
+    }
+
+    private Void writeStudents(Path file, ExportReport report) throws IOException {
+        long rows = 0;
+        try (BufferedWriter w = newWriter(file)) {
+            for (Student s : studentService.listStudents()) {
+                w.write(s.getRegNo());
+                w.write(',');
+                w.write(s.getFullName());
+                w.write(',');
+                w.write(s.getEmail());
+                w.write(',');
+                w.write(s.isActive() ? "active" : "inactive");
+                w.newLine();
+                rows++;
+            }
+        }
+        report.wrote(file.getFileName().toString(), rows);
+        return null;
+    }
+
+    private Void writeCourses(Path file, ExportReport report) throws IOException {
+        long rows = 0;
+        try (BufferedWriter w = newWriter(file)) {
+            for (Course c : courseService.listCourses()) {
+                w.write(c.getCode());
+                w.write(',');
+                w.write(c.getTitle());
+                w.write(',');
+                w.write(Integer.toString(c.getCredits()));
+                w.write(',');
+                w.write(c.getDepartment());
+                w.write(',');
+                w.write(c.getSemester().name());
+                w.newLine();
+                rows++;
+            }
+        }
+        report.wrote(file.getFileName().toString(), rows);
+        return null;
+    }
+
+    private Void writeEnrollments(Path file, ExportReport report) throws IOException {
+        long[] rows = {0};
+        try (BufferedWriter w = newWriter(file)) {
+            try {
+                enrollmentService.forEachEnrollment(e -> {
+                    try {
+                        w.write(e.getStudent().getRegNo());
+                        w.write(',');
+                        w.write(e.getCourse().getCode());
+                        w.write(',');
+                        Grade g = e.getGrade();
+                        if (g != null) w.write(g.name());
+                        w.write(',');
+                        w.write(e.getEnrolledOn().toString());
+                        w.newLine();
+                        rows[0]++;
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+        }
+        report.wrote(file.getFileName().toString(), rows[0]);
+        return null;
+    }
+
+    private static BufferedWriter newWriter(Path file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING), StandardCharsets.UTF_8), WRITE_BUFFER);
     }
 }
@@ -0,0 +1,43 @@
+package edu.ccrm.io;
+
+/**
+ * Counters for one import run: rows read, imported and rejected (bad format or refused by the service).
+ */
+public class ImportReport {
+    private final String source;
+    private final long startNanos = System.nanoTime();
+    private long rowsRead;
+    private long imported;
+    private long rejected;
+    private long elapsedNanos;
+
+    public ImportReport(String source) {
+        this.source = source;
+    }
+
+    void read(long n) { rowsRead += n; }
+    void imported(long n) { imported += n; }
+    void rejected(long n) { rejected += n; }
+    void finish() { elapsedNanos = System.nanoTime() - startNanos; }
+
+    public String getSource() { return source; }
+    public long getRowsRead() { return rowsRead; }
+    public long getImported() { return imported; }
+    public long getRejected() { return rejected; }
+
+    public long getElapsedMillis() {
+        long nanos = elapsedNanos == 0 ? System.nanoTime() - startNanos : elapsedNanos;
+        return nanos / 1_000_000;
+    }
+
+    public long getRowsPerSecond() {
+        long ms = getElapsedMillis();
+        return ms == 0 ? rowsRead : rowsRead * 1000 / ms;
+    }
+
+    @Override
+    public String toString() {
+        return source + ": read " + rowsRead + ", imported " + imported + ", rejected " + rejected
+                + " in " + getElapsedMillis() + " ms (" + getRowsPerSecond() + " rows/s)";
+    }
+}
@@ -0,0 +1,558 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.service.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead journal of service mutations, with group commit.
+ *
+ * Mutating threads only encode a small record and queue it; one background thread
+ * writes everything queued so far and fsyncs once for the whole group. In GROUP mode the
+ * mutating thread waits for that fsync in {@link #commit()}, which the services call after
+ * releasing their locks and once per batch call. In ASYNC mode it returns at once and the
+ * data is at most {@code flushIntervalMillis} behind.
+ * Bulk loads go through {@link #bulkLoad}, which skips per-row records and checkpoints once.
+ * The flusher thread is the only one that touches the file, including during rotation.
+ *
+ * Record layout: int payload length, int CRC32 of payload, payload (type byte + fields).
+ * Replay stops at the first truncated or corrupt record (a torn tail after a crash); recovery
+ * moves that tail aside to {@code <file>.torn-<millis>} and truncates the file, so records
+ * appended in the next session are not hidden behind it.
+ * Replay is idempotent, so a journal may overlap the snapshot it is replayed onto.
+ *
+ * Files in the data directory: {@code snapshot.bin}, {@code journal.log}, and numbered
+ * {@code journal.log.old.N} segments that a checkpoint rotated out. A segment is deleted only
+ * once a snapshot covering it has been written; recovery replays them in order.
+ */
+public class Journal implements MutationListener, Closeable {
+
+    public enum Durability { GROUP, ASYNC }
+
+    static final String SNAPSHOT = "snapshot.bin";
+    static final String JOURNAL = "journal.log";
+    static final String JOURNAL_OLD = "journal.log.old"; // segments are journal.log.old.N
+
+    private static final byte ADD_STUDENT = 1, ADD_COURSE = 2, ENROLL = 3, UNENROLL = 4,
+            GRADE = 5, EMAIL = 6, DEACTIVATE = 7, INSTRUCTOR = 8;
+
+    private final Path dir;
+    private final Durability durability;
+    private final long flushIntervalMillis;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition work = lock.newCondition();
+    private final Condition durable = lock.newCondition();
+    private final Thread flusher;
+
+    // sequence number of the last record each thread appended, for commit()
+    private final ThreadLocal<long[]> lastSeq = ThreadLocal.withInitial(() -> new long[1]);
+    // set on a thread while it runs bulkLoad
+    private final ThreadLocal<Boolean> suspended = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private FileChannel channel; // flusher thread only, until it exits
+    private long nextSegment; // flusher thread only
+    // guarded by lock
+    private List<byte[]> pending = new ArrayList<>();
+    private long appendedSeq;
+    private long durableSeq;
+    private boolean closed;
+    private IOException failure;
+    private boolean rotateRequested;
+    private long rotations;
+    private IOException rotateError;
+    private long lastSegment; // highest segment number rotated out so far
+
+    private Journal(Path dir, Durability durability, long flushIntervalMillis) throws IOException {
+        this.dir = dir;
+        this.durability = durability;
+        this.flushIntervalMillis = Math.max(1, flushIntervalMillis);
+        Files.createDirectories(dir);
+        List<Long> segments = segments(dir);
+        this.lastSegment = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+        this.nextSegment = lastSegment + 1;
+        this.channel = openChannel(dir.resolve(JOURNAL));
+        this.flusher = new Thread(this::flushLoop, "ccrm-journal");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    public static Journal open(Path dir, Durability durability) throws IOException {
+        return new Journal(dir, durability, 5);
+    }
+
+    public static Journal open(Path dir, Durability durability, long flushIntervalMillis) throws IOException {
+        return new Journal(dir, durability, flushIntervalMillis);
+    }
+
+    /** Route every service mutation into this journal. */
+    public void attach(StudentService ss, CourseService cs, EnrollmentService es) {
+        ss.setMutationListener(this);
+        cs.setMutationListener(this);
+        es.setMutationListener(this);
+    }
+
+    private static FileChannel openChannel(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // ---------------- MutationListener ----------------
+
+    @Override
+    public void studentAdded(Student s) {
+        append(new Rec(ADD_STUDENT).str(s.getId()).str(s.getRegNo()).str(s.getFullName()).str(s.getEmail())
+                .b(s.isActive() ? 1 : 0));
+    }
+
+    @Override
+    public void emailUpdated(Student s) {
+        append(new Rec(EMAIL).str(s.getRegNo()).str(s.getEmail()));
+    }
+
+    @Override
+    public void studentDeactivated(Student s) {
+        append(new Rec(DEACTIVATE).str(s.getRegNo()));
+    }
+
+    @Override
+    public void courseAdded(Course c) {
+        append(new Rec(ADD_COURSE).str(c.getCode()).str(c.getTitle()).i(c.getCredits()).str(c.getDepartment())
+                .b(c.getSemester().ordinal()).i(c.getCapacity()));
+        if (c.getInstructor() != null) instructorAssigned(c); // courses loaded from a snapshot already have one
+    }
+
+    @Override
+    public void instructorAssigned(Course c) {
+        Instructor ins = c.getInstructor();
+        if (ins == null) {
+            append(new Rec(INSTRUCTOR).str(c.getCode()).b(0));
+            return;
+        }
+        append(new Rec(INSTRUCTOR).str(c.getCode()).b(1).str(ins.getId()).str(ins.getFullName()).str(ins.getEmail())
+                .str(ins.getDepartment()));
+    }
+
+    @Override
+    public void enrolled(Enrollment e) {
+        LocalDateTime t = e.getEnrolledOn();
+        append(new Rec(ENROLL).str(e.getStudent().getRegNo()).str(e.getCourse().getCode())
+                .l(t.toEpochSecond(ZoneOffset.UTC)).i(t.getNano())
+                .b(e.getGrade() == null ? -1 : e.getGrade().ordinal()));
+    }
+
+    @Override
+    public void unenrolled(Enrollment e) {
+        append(new Rec(UNENROLL).str(e.getStudent().getRegNo()).str(e.getCourse().getCode()));
+    }
+
+    @Override
+    public void gradeRecorded(Enrollment e) {
+        append(new Rec(GRADE).str(e.getStudent().getRegNo()).str(e.getCourse().getCode())
+                .b(e.getGrade() == null ? -1 : e.getGrade().ordinal()));
+    }
+
+    // ---------------- group commit ----------------
+
+    // queues the record; never blocks on I/O, since callers hold service locks
+    private void append(Rec rec) {
+        if (suspended.get()) return;
+        byte[] bytes = rec.finish();
+        lock.lock();
+        try {
+            if (failure != null) throw new UncheckedIOException("Journal write failed", failure);
+            if (closed) throw new IllegalStateException("Journal is closed");
+            pending.add(bytes);
+            lastSeq.get()[0] = ++appendedSeq;
+            work.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** In GROUP mode, wait until every record this thread appended is on disk. */
+    @Override
+    public void commit() {
+        if (durability != Durability.GROUP) return;
+        long mySeq = lastSeq.get()[0];
+        lock.lock();
+        try {
+            while (durableSeq < mySeq && failure == null) durable.awaitUninterruptibly();
+            if (failure != null) throw new UncheckedIOException("Journal write failed", failure);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            List<byte[]> batch;
+            long upTo;
+            boolean rotate;
+            lock.lock();
+            try {
+                while (pending.isEmpty() && !rotateRequested && !closed) {
+                    try {
+                        work.await(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                rotate = rotateRequested;
+                if (pending.isEmpty() && !rotate) { // closed and drained
+                    durable.signalAll();
+                    return;
+                }
+                batch = pending;
+                pending = new ArrayList<>(Math.max(16, batch.size()));
+                upTo = appendedSeq;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            if (!batch.isEmpty() && failure == null) {
+                try {
+                    write(channel, batch);
+                    channel.force(false);
+                } catch (IOException e) {
+                    error = e;
+                }
+            }
+            // records queued after this batch was taken go to the new file
+            IOException rotateFailed = rotate && error == null ? rotate() : null;
+
+            lock.lock();
+            try {
+                if (error != null) failure = error;
+                else if (failure == null) durableSeq = upTo;
+                if (rotate) {
+                    rotateRequested = false;
+                    rotateError = error != null ? error : rotateFailed;
+                    if (rotateError == null) lastSegment = nextSegment - 1;
+                    rotations++;
+                }
+                durable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static void write(FileChannel ch, List<byte[]> batch) throws IOException {
+        int total = 0;
+        for (byte[] b : batch) total += b.length;
+        ByteBuffer buf = ByteBuffer.allocate(total);
+        for (byte[] b : batch) buf.put(b);
+        buf.flip();
+        while (buf.hasRemaining()) ch.write(buf);
+    }
+
+    // journal.log -> the next journal.log.old.N, then a fresh journal.log; on failure the current
+    // file stays in use. Segments are never overwritten: an earlier one whose checkpoint failed
+    // still holds records that no snapshot covers.
+    private IOException rotate() {
+        Path live = dir.resolve(JOURNAL);
+        Path old = dir.resolve(JOURNAL_OLD + "." + nextSegment);
+        try {
+            Files.move(live, old);
+        } catch (IOException e) {
+            return e;
+        }
+        FileChannel fresh;
+        try {
+            fresh = openChannel(live);
+        } catch (IOException e) {
+            try {
+                Files.move(old, live); // still the file the open channel writes to
+            } catch (IOException ignored) {
+                // recovery replays the segments as well, so nothing is lost
+            }
+            return e;
+        }
+        nextSegment++;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // already forced; the old file is complete
+        }
+        channel = fresh;
+        return null;
+    }
+
+    /** Block until everything appended so far is on disk. */
+    public void sync() throws IOException {
+        lock.lock();
+        try {
+            long target = appendedSeq;
+            work.signal();
+            while (durableSeq < target && failure == null && flusher.isAlive()) {
+                durable.awaitUninterruptibly();
+            }
+            if (failure != null) throw failure;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write a fresh snapshot and drop the journal it covers. The live journal is first
+     * rotated to a new journal.log.old.N segment so mutations keep flowing into a new file
+     * while the snapshot is written. Only after the snapshot is saved are the segments up to
+     * N deleted; if the save fails or we crash midway, recovery replays all of them.
+     */
+    public void checkpoint(SnapshotService snapshots) throws IOException {
+        long covered;
+        lock.lock();
+        try {
+            if (failure != null) throw failure;
+            if (closed) throw new IllegalStateException("Journal is closed");
+            // the flusher writes out what is queued, then rotates
+            long target = rotations + 1;
+            rotateRequested = true;
+            work.signal();
+            while (rotations < target && flusher.isAlive()) durable.awaitUninterruptibly();
+            if (rotations < target) throw new IOException("Journal flusher stopped");
+            if (rotateError != null) throw rotateError;
+            covered = lastSegment;
+        } finally {
+            lock.unlock();
+        }
+        snapshots.save(dir.resolve(SNAPSHOT));
+        for (long n : segments(dir)) {
+            if (n <= covered) Files.deleteIfExists(dir.resolve(JOURNAL_OLD + "." + n));
+        }
+        Files.deleteIfExists(dir.resolve(JOURNAL_OLD)); // single segment written by older versions
+    }
+
+    // numbers of the journal.log.old.N segments in dir, ascending
+    private static List<Long> segments(Path dir) throws IOException {
+        List<Long> out = new ArrayList<>();
+        String prefix = JOURNAL_OLD + ".";
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, prefix + "*")) {
+            for (Path p : files) {
+                String suffix = p.getFileName().toString().substring(prefix.length());
+                if (!suffix.isEmpty() && suffix.chars().allMatch(ch -> ch >= '0' && ch <= '9')) {
+                    out.add(Long.parseLong(suffix));
+                }
+            }
+        }
+        Collections.sort(out);
+        return out;
+    }
+
+    /**
+     * Run a bulk load (CSV import, snapshot load) on the calling thread without a journal
+     * record per row, then checkpoint so the loaded state is made durable by one snapshot
+     * write. Other threads keep journaling as usual. If the process dies before the
+     * checkpoint finishes, the load is lost as a whole.
+     */
+    public <T> T bulkLoad(SnapshotService snapshots, BulkLoad<T> load) throws IOException {
+        if (suspended.get()) return load.run(); // nested: the outer call checkpoints
+        T result;
+        suspended.set(Boolean.TRUE);
+        try {
+            result = load.run();
+        } finally {
+            suspended.set(Boolean.FALSE);
+        }
+        checkpoint(snapshots);
+        return result;
+    }
+
+    @FunctionalInterface
+    public interface BulkLoad<T> {
+        T run() throws IOException;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            work.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close(); // flusher has exited
+        lock.lock();
+        try {
+            if (failure != null) throw failure;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ---------------- recovery ----------------
+
+    /**
+     * Load {@code dir}/snapshot.bin (if any) into the services and replay the journal files
+     * on top, oldest segment first. Call before attaching a journal, so replayed changes are
+     * not logged again. Returns the number of journal records applied.
+     */
+    public static long recover(Path dir, SnapshotService snapshots, StudentService ss, CourseService cs,
+                               EnrollmentService es) throws IOException {
+        if (!Files.isDirectory(dir)) return 0;
+        Path snapshot = dir.resolve(SNAPSHOT);
+        if (Files.exists(snapshot)) snapshots.load(snapshot);
+        List<Path> files = new ArrayList<>();
+        files.add(dir.resolve(JOURNAL_OLD));
+        for (long n : segments(dir)) files.add(dir.resolve(JOURNAL_OLD + "." + n));
+        files.add(dir.resolve(JOURNAL));
+        long applied = 0;
+        for (Path file : files) {
+            if (Files.exists(file)) applied += replay(file, ss, cs, es);
+        }
+        return applied;
+    }
+
+    // applies the valid prefix of file, then cuts off whatever follows it
+    static long replay(Path file, StudentService ss, CourseService cs, EnrollmentService es) throws IOException {
+        byte[] all = Files.readAllBytes(file);
+        ByteBuffer buf = ByteBuffer.wrap(all);
+        CRC32 crc = new CRC32();
+        long applied = 0;
+        int valid = 0;
+        while (buf.remaining() >= 8) {
+            int len = buf.getInt();
+            int sum = buf.getInt();
+            if (len <= 0 || len > buf.remaining()) break; // torn tail
+            crc.reset();
+            crc.update(all, buf.position(), len);
+            if ((int) crc.getValue() != sum) break;
+            ByteBuffer rec = buf.slice();
+            rec.limit(len);
+            buf.position(buf.position() + len);
+            apply(rec, ss, cs, es);
+            applied++;
+            valid = buf.position();
+        }
+        if (valid < all.length) cutTail(file, all, valid);
+        return applied;
+    }
+
+    // keep the bytes for inspection, then truncate so the file ends at the last good record
+    private static void cutTail(Path file, byte[] all, int valid) throws IOException {
+        Path aside = file.resolveSibling(file.getFileName() + ".torn-" + System.currentTimeMillis());
+        Files.write(aside, Arrays.copyOfRange(all, valid, all.length), StandardOpenOption.CREATE_NEW);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.truncate(valid);
+            ch.force(true);
+        }
+    }
+
+    private static void apply(ByteBuffer r, StudentService ss, CourseService cs, EnrollmentService es) {
+        switch (r.get()) {
+            case ADD_STUDENT -> {
+                String id = str(r), regNo = str(r), name = str(r), email = str(r);
+                Student s = new Student(id, name, email, regNo);
+                s.setActive(r.get() == 1);
+                ss.addStudents(List.of(s));
+            }
+            case ADD_COURSE -> {
+                String code = str(r), title = str(r);
+                int credits = r.getInt();
+                String dept = str(r);
+                Semester sem = Semester.values()[r.get()];
+                cs.addCourses(List.of(new Course.Builder(code, title).credits(credits).department(dept)
+                        .semester(sem).capacity(r.getInt()).build()));
+            }
+            case INSTRUCTOR -> {
+                String code = str(r);
+                Instructor ins = r.get() == 1 ? new Instructor(str(r), str(r), str(r), str(r)) : null;
+                cs.changeInstructor(code, ins);
+            }
+            case ENROLL -> {
+                String regNo = str(r), code = str(r);
+                LocalDateTime t = LocalDateTime.ofEpochSecond(r.getLong(), r.getInt(), ZoneOffset.UTC);
+                byte g = r.get();
+                var s = ss.findByRegNo(regNo);
+                var c = cs.findByCode(code);
+                if (s.isPresent() && c.isPresent()) {
+                    Enrollment e = new Enrollment(s.get(), c.get(), t);
+                    if (g >= 0) e.setGrade(Grade.values()[g]);
+                    es.restore(e);
+                }
+            }
+            case UNENROLL -> es.unenrollBatch(List.of(EnrollmentRequest.of(str(r), str(r))));
+            case GRADE -> {
+                String regNo = str(r), code = str(r);
+                byte g = r.get();
+                es.changeGrade(regNo, code, g < 0 ? null : Grade.values()[g]);
+            }
+            case EMAIL -> ss.changeEmail(str(r), str(r));
+            case DEACTIVATE -> ss.deactivate(str(r));
+            default -> { } // unknown record type from a newer version: skip
+        }
+    }
+
+    private static String str(ByteBuffer r) {
+        int len = r.getShort() & 0xFFFF;
+        String s = new String(r.array(), r.arrayOffset() + r.position(), len, StandardCharsets.UTF_8);
+        r.position(r.position() + len);
+        return s;
+    }
+
+    // small record encoder: header is patched in finish()
+    private static class Rec {
+        private ByteBuffer buf = ByteBuffer.allocate(128);
+
+        Rec(byte type) {
+            buf.position(8);
+            buf.put(type);
+        }
+
+        private void room(int n) {
+            if (buf.remaining() >= n) return;
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + n));
+            buf.flip();
+            bigger.put(buf);
+            buf = bigger;
+        }
+
+        Rec str(String s) {
+            byte[] b = s == null ? new byte[0] : s.getBytes(StandardCharsets.UTF_8);
+            int len = Math.min(b.length, 0xFFFF);
+            room(2 + len);
+            buf.putShort((short) len);
+            buf.put(b, 0, len);
+            return this;
+        }
+
+        Rec i(int v) { room(4); buf.putInt(v); return this; }
+        Rec l(long v) { room(8); buf.putLong(v); return this; }
+        Rec b(int v) { room(1); buf.put((byte) v); return this; }
+
+        byte[] finish() {
+            int len = buf.position() - 8;
+            CRC32 crc = new CRC32();
+            crc.update(buf.array(), 8, len);
+            buf.putInt(0, len);
+            buf.putInt(4, (int) crc.getValue());
+            byte[] out = new byte[buf.position()];
+            System.arraycopy(buf.array(), 0, out, 0, out.length);
+            return out;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package edu.ccrm.io;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a CSV through {@link FileChannel#map} without creating a String per line or a
+ * String[] per split. Each line is exposed as a {@link Row} of byte offsets into the
+ * mapped region; callers decode only the fields they need, numbers and enum names are
+ * parsed straight from the bytes. Large files are mapped in line-aligned windows.
+ */
+public class MappedCsvReader {
+
+    static final long DEFAULT_WINDOW = 256L << 20;
+
+    public interface RowHandler {
+        void onRow(Row row);
+    }
+
+    private final long window;
+
+    public MappedCsvReader() {
+        this(DEFAULT_WINDOW);
+    }
+
+    public MappedCsvReader(long window) {
+        this.window = Math.max(4096, Math.min(window, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Visit every line of {@code csv}; the Row passed to the handler is reused, so it must
+     * not be kept after onRow returns. Returns the number of lines read.
+     */
+    public long read(Path csv, int maxFields, RowHandler handler) throws IOException {
+        Row row = new Row(maxFields);
+        long lines = 0;
+        try (FileChannel ch = FileChannel.open(csv, StandardOpenOption.READ)) {
+            long size = ch.size();
+            long pos = 0;
+            while (pos < size) {
+                long end = ParallelCsvImporter.nextLineBoundary(ch, Math.min(pos + window, size), size);
+                MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, pos, end - pos);
+                lines += readWindow(buf, row, handler);
+                pos = end;
+            }
+        }
+        return lines;
+    }
+
+    private static long readWindow(MappedByteBuffer buf, Row row, RowHandler handler) {
+        row.buf = buf;
+        int len = buf.limit();
+        int start = 0;
+        long lines = 0;
+        while (start < len) {
+            int nl = start;
+            while (nl < len && buf.get(nl) != '\n') nl++;
+            int end = nl > start && buf.get(nl - 1) == '\r' ? nl - 1 : nl;
+            row.load(start, end);
+            handler.onRow(row);
+            lines++;
+            start = nl + 1;
+        }
+        return lines;
+    }
+
+    /**
+     * One line of the mapped file, as trimmed field offsets. Fields past maxFields are ignored.
+     */
+    public static class Row {
+        private MappedByteBuffer buf;
+        private final int[] from;
+        private final int[] to;
+        private int count;
+        private byte[] scratch = new byte[256];
+
+        Row(int maxFields) {
+            from = new int[maxFields];
+            to = new int[maxFields];
+        }
+
+        void load(int start, int end) {
+            count = 0;
+            int f = start;
+            while (count < from.length) {
+                int i = f;
+                while (i < end && buf.get(i) != ',') i++;
+                int a = f, b = i;
+                while (a < b && (buf.get(a) & 0xff) <= ' ') a++;
+                while (b > a && (buf.get(b - 1) & 0xff) <= ' ') b--;
+                from[count] = a;
+                to[count] = b;
+                count++;
+                if (i >= end) break;
+                f = i + 1;
+            }
+        }
+
+        public int fieldCount() { return count; }
+
+        public boolean isEmpty(int i) { return from[i] == to[i]; }
+
+        /** Decode field i as UTF-8; the only per-field allocation is the returned String. */
+        public String string(int i) {
+            int len = to[i] - from[i];
+            if (scratch.length < len) scratch = new byte[Math.max(len, scratch.length * 2)];
+            buf.get(from[i], scratch, 0, len);
+            return new String(scratch, 0, len, StandardCharsets.UTF_8);
+        }
+
+        /** Parse field i as a decimal int; throws NumberFormatException if it is not one. */
+        public int parseInt(int i) {
+            int p = from[i], end = to[i];
+            if (p == end) throw new NumberFormatException("empty field " + i);
+            boolean neg = buf.get(p) == '-';
+            if (neg || buf.get(p) == '+') p++;
+            if (p == end) throw new NumberFormatException("sign without digits in field " + i);
+            long v = 0;
+            for (; p < end; p++) {
+                int d = buf.get(p) - '0';
+                if (d < 0 || d > 9) throw new NumberFormatException("not a number: " + string(i));
+                v = v * 10 + d;
+                if (v > Integer.MAX_VALUE + 1L) throw new NumberFormatException("out of range: " + string(i));
+            }
+            v = neg ? -v : v;
+            if (v > Integer.MAX_VALUE) throw new NumberFormatException("out of range: " + string(i));
+            return (int) v;
+        }
+
+        /** Match field i against the enum constant names, ASCII case-insensitively; null if none match. */
+        public <E extends Enum<E>> E enumIgnoreCase(int i, E[] values) {
+            int len = to[i] - from[i];
+            outer:
+            for (E e : values) {
+                String name = e.name();
+                if (name.length() != len) continue;
+                for (int k = 0; k < len; k++) {
+                    int b = buf.get(from[i] + k);
+                    if (b >= 'a' && b <= 'z') b -= 32;
+                    if (b != Character.toUpperCase(name.charAt(k))) continue outer;
+                }
+                return e;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package edu.ccrm.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Multi-core CSV import pipeline. The file is cut into byte ranges that end on line
+ * boundaries; ranges are read and parsed in parallel on a fork-join pool, and a single
+ * ordered sink (the calling thread) hands each parsed chunk to the service in file order.
+ * At most {@code 2 * parallelism} chunks are in flight, so memory stays bounded.
+ */
+public class ParallelCsvImporter<T> {
+
+    static final int DEFAULT_CHUNK_BYTES = 8 << 20;
+
+    private final int fieldCount;
+    private final Function<String[], T> parser;
+    private final ToIntFunction<List<T>> sink;
+    private final int parallelism;
+    private final int chunkBytes;
+
+    /**
+     * @param fieldCount number of leading fields a row needs
+     * @param parser     turns fields into a row, or null if the row is malformed
+     * @param sink       inserts a chunk of rows and returns how many were accepted
+     */
+    public ParallelCsvImporter(int fieldCount, Function<String[], T> parser, ToIntFunction<List<T>> sink,
+                               int parallelism, int chunkBytes) {
+        this.fieldCount = fieldCount;
+        this.parser = parser;
+        this.sink = sink;
+        this.parallelism = Math.max(1, parallelism);
+        this.chunkBytes = Math.max(1024, chunkBytes);
+    }
+
+    public ImportReport run(Path csv) throws IOException {
+        ImportReport report = new ImportReport(csv.getFileName().toString());
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (FileChannel ch = FileChannel.open(csv, StandardOpenOption.READ)) {
+            Deque<Future<Chunk<T>>> inFlight = new ArrayDeque<>();
+            long pos = 0;
+            long size = ch.size();
+            while (pos < size || !inFlight.isEmpty()) {
+                while (pos < size && inFlight.size() < 2 * parallelism) {
+                    long end = nextLineBoundary(ch, Math.min(pos + chunkBytes, size), size);
+                    long from = pos;
+                    inFlight.addLast(pool.submit(() -> parse(ch, from, end)));
+                    pos = end;
+                }
+                Chunk<T> chunk = await(inFlight.removeFirst());
+                int accepted = chunk.rows.isEmpty() ? 0 : sink.applyAsInt(chunk.rows);
+                report.read(chunk.lines);
+                report.imported(accepted);
+                report.rejected(chunk.lines - accepted);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        report.finish();
+        return report;
+    }
+
+    // first offset after a '\n' at or beyond from (or size)
+    static long nextLineBoundary(FileChannel ch, long from, long size) throws IOException {
+        if (from >= size) return size;
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        long pos = from - 1;
+        while (pos < size) {
+            buf.clear();
+            int n = ch.read(buf, pos);
+            if (n <= 0) return size;
+            for (int i = 0; i < n; i++) {
+                if (buf.get(i) == '\n') return pos + i + 1;
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    private Chunk<T> parse(FileChannel ch, long from, long to) throws IOException {
+        byte[] bytes = new byte[(int) (to - from)];
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        while (buf.hasRemaining()) {
+            if (ch.read(buf, from + buf.position()) < 0) break;
+        }
+        Chunk<T> chunk = new Chunk<>();
+        String[] f = new String[fieldCount];
+        int start = 0;
+        int len = buf.position();
+        while (start < len) {
+            int nl = start;
+            while (nl < len && bytes[nl] != '\n') nl++;
+            int end = nl > start && bytes[nl - 1] == '\r' ? nl - 1 : nl;
+            chunk.lines++;
+            String line = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+            T row = CsvFields.split(line, f) == fieldCount ? parser.apply(f) : null;
+            if (row != null) chunk.rows.add(row);
+            start = nl + 1;
+        }
+        return chunk;
+    }
+
+    private static <T> Chunk<T> await(Future<Chunk<T>> f) throws IOException {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException("Import failed: " + e.getCause(), e.getCause());
+        }
+    }
+
+    private static class Chunk<T> {
+        final List<T> rows = new ArrayList<>();
+        long lines;
+    }
+}
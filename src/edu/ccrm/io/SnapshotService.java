@@ -0,0 +1,331 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.*;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentService;
+import edu.ccrm.service.StudentService;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Versioned binary snapshot of all student, course and enrollment state.
+ *
+ * Layout (big-endian): magic "CCRM", u16 version, then three sections
+ * (dictionary, courses, students), each an int record count followed by records.
+ * Every course and student record is prefixed with its byte length. Course codes and
+ * departments are written once in the dictionary and referenced by index; grades and
+ * semesters are stored as enum ordinals. Strings are a u16 byte length and UTF-8 bytes;
+ * since version 2 a length of 0xFFFF marks a null string. A student record carries that
+ * student's enrollments, so no student index is needed to link them back.
+ * Waitlists are not part of the snapshot, and neither are enrollments in courses added
+ * after the course list was captured (the journal holds both the course and the enrollment).
+ */
+public class SnapshotService {
+
+    static final int MAGIC = 0x4343524D; // "CCRM"
+    static final short VERSION = 2;
+    private static final int BUFFER = 1 << 20;
+    private static final int NULL_STRING = 0xFFFF; // string length marking null
+
+    private final StudentService studentService;
+    private final CourseService courseService;
+    private final EnrollmentService enrollmentService;
+
+    public SnapshotService(StudentService ss, CourseService cs, EnrollmentService es) {
+        this.studentService = ss;
+        this.courseService = cs;
+        this.enrollmentService = es;
+    }
+
+    /**
+     * Write a snapshot to {@code file} (via a temp file and an atomic rename). Returns bytes written.
+     */
+    public long save(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null && !Files.exists(parent)) Files.createDirectories(parent);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        // mutations keep flowing while we write: read each course's instructor once, and only
+        // link enrollments to courses captured here
+        List<Course> courses = courseService.listCourses();
+        Instructor[] instructors = new Instructor[courses.size()];
+        Set<Course> captured = Collections.newSetFromMap(new IdentityHashMap<>());
+        Map<String, Integer> dict = new LinkedHashMap<>();
+        for (int i = 0; i < courses.size(); i++) {
+            Course c = courses.get(i);
+            captured.add(c);
+            dict.putIfAbsent(c.getCode(), dict.size());
+            dict.putIfAbsent(c.getDepartment(), dict.size());
+            instructors[i] = c.getInstructor();
+            if (instructors[i] != null) dict.putIfAbsent(instructors[i].getDepartment(), dict.size());
+        }
+
+        long bytes;
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Out out = new Out(ch);
+            out.buf.putInt(MAGIC).putShort(VERSION);
+
+            out.ensure(4);
+            out.buf.putInt(dict.size());
+            for (String s : dict.keySet()) out.string(s);
+
+            out.ensure(4);
+            out.buf.putInt(courses.size());
+            for (int i = 0; i < courses.size(); i++) {
+                Course c = courses.get(i);
+                out.begin();
+                out.buf.putInt(dict.get(c.getCode()));
+                out.string(c.getTitle());
+                out.buf.putInt(c.getCredits());
+                out.buf.putInt(dict.get(c.getDepartment()));
+                out.buf.put((byte) c.getSemester().ordinal());
+                out.buf.putInt(c.getCapacity());
+                out.buf.put((byte) (c.isActive() ? 1 : 0));
+                Instructor ins = instructors[i];
+                out.buf.put((byte) (ins == null ? 0 : 1));
+                if (ins != null) {
+                    out.string(ins.getId());
+                    out.string(ins.getFullName());
+                    out.string(ins.getEmail());
+                    out.buf.putInt(dict.get(ins.getDepartment()));
+                }
+                out.end();
+            }
+
+            List<Student> students = new ArrayList<>(studentService.count());
+            studentService.forEachStudent(students::add);
+            out.ensure(4);
+            out.buf.putInt(students.size());
+            for (Student s : students) {
+                out.begin();
+                out.string(s.getId());
+                out.string(s.getRegNo());
+                out.string(s.getFullName());
+                out.string(s.getEmail());
+                out.buf.put((byte) (s.isActive() ? 1 : 0));
+                List<Enrollment> ens = new ArrayList<>(s.getEnrollments());
+                ens.removeIf(e -> !captured.contains(e.getCourse()));
+                out.ensure(4);
+                out.buf.putInt(ens.size());
+                for (Enrollment e : ens) {
+                    out.ensure(17);
+                    out.buf.putInt(dict.get(e.getCourse().getCode()));
+                    out.buf.put((byte) (e.getGrade() == null ? -1 : e.getGrade().ordinal()));
+                    LocalDateTime t = e.getEnrolledOn();
+                    out.buf.putLong(t.toEpochSecond(ZoneOffset.UTC));
+                    out.buf.putInt(t.getNano());
+                }
+                out.end();
+            }
+            out.flush();
+            ch.force(true);
+            bytes = ch.size();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return bytes;
+    }
+
+    /**
+     * Load a snapshot into the (normally empty) services. Returns the number of
+     * courses + students + enrollments read.
+     */
+    public long load(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            In in = new In(ch);
+            in.need(6);
+            if (in.buf.getInt() != MAGIC) throw new IOException("Not a CCRM snapshot: " + file);
+            short version = in.buf.getShort();
+            if (version < 1 || version > VERSION) throw new IOException("Unsupported snapshot version " + version);
+            in.nullStrings = version >= 2;
+
+            in.need(4);
+            String[] dict = new String[in.buf.getInt()];
+            for (int i = 0; i < dict.length; i++) dict[i] = in.string();
+
+            Semester[] semesters = Semester.values();
+            Grade[] grades = Grade.values();
+            Map<String, Course> byCode = new HashMap<>();
+            in.need(4);
+            int courseCount = in.buf.getInt();
+            List<Course> courses = new ArrayList<>(courseCount);
+            for (int i = 0; i < courseCount; i++) {
+                in.record();
+                String code = dict[in.buf.getInt()];
+                String title = in.string();
+                int credits = in.buf.getInt();
+                String dept = dict[in.buf.getInt()];
+                Semester sem = semesters[in.buf.get()];
+                int capacity = in.buf.getInt();
+                boolean active = in.buf.get() == 1;
+                Instructor ins = null;
+                if (in.buf.get() == 1) {
+                    ins = new Instructor(in.string(), in.string(), in.string(), dict[in.buf.getInt()]);
+                }
+                Course c = new Course.Builder(code, title).credits(credits).department(dept)
+                        .semester(sem).capacity(capacity).instructor(ins).build();
+                c.setActive(active);
+                courses.add(c);
+                byCode.put(code, c);
+            }
+            courseService.addCourses(courses);
+
+            in.need(4);
+            int studentCount = in.buf.getInt();
+            List<Student> batch = new ArrayList<>(Math.min(studentCount, 10_000));
+            List<Enrollment> enrollments = new ArrayList<>();
+            long enrollmentCount = 0;
+            for (int i = 0; i < studentCount; i++) {
+                in.record();
+                String id = in.string();
+                String regNo = in.string();
+                String name = in.string();
+                String email = in.string();
+                Student s = new Student(id, name, email, regNo);
+                s.setActive(in.buf.get() == 1);
+                int n = in.buf.getInt();
+                for (int k = 0; k < n; k++) {
+                    Course c = byCode.get(dict[in.buf.getInt()]);
+                    byte g = in.buf.get();
+                    LocalDateTime t = LocalDateTime.ofEpochSecond(in.buf.getLong(), in.buf.getInt(), ZoneOffset.UTC);
+                    if (c == null) continue;
+                    Enrollment e = new Enrollment(s, c, t);
+                    if (g >= 0) e.setGrade(grades[g]);
+                    enrollments.add(e);
+                }
+                batch.add(s);
+                if (batch.size() >= 10_000) {
+                    enrollmentCount += enrollments.size();
+                    flush(batch, enrollments);
+                    enrollments.clear();
+                }
+            }
+            enrollmentCount += enrollments.size();
+            flush(batch, enrollments);
+            return courseCount + studentCount + enrollmentCount;
+        }
+    }
+
+    private void flush(List<Student> students, List<Enrollment> enrollments) {
+        studentService.addStudents(students);
+        // skip enrollments of students or courses the registry refused (e.g. regNo or code already present)
+        enrollments.removeIf(e -> studentService.findByRegNo(e.getStudent().getRegNo()).orElse(null) != e.getStudent()
+                || courseService.findByCode(e.getCourse().getCode()).orElse(null) != e.getCourse());
+        enrollmentService.restoreAll(enrollments);
+        students.clear();
+    }
+
+    // buffered channel writer; records are length-prefixed by begin()/end()
+    private static class Out {
+        final FileChannel ch;
+        ByteBuffer buf = ByteBuffer.allocate(BUFFER);
+        int recordStart = -1;
+
+        Out(FileChannel ch) { this.ch = ch; }
+
+        // make room for n bytes; a record in progress is moved along, never split
+        void ensure(int n) throws IOException {
+            if (buf.remaining() >= n) return;
+            int keepFrom = recordStart >= 0 ? recordStart : buf.position();
+            int end = buf.position();
+            buf.position(0).limit(keepFrom);
+            while (buf.hasRemaining()) ch.write(buf);
+            buf.limit(end);
+            buf.compact(); // moves the unfinished record [keepFrom, end) to the front
+            if (recordStart >= 0) recordStart = 0;
+            if (buf.remaining() < n) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + n));
+                buf.flip();
+                bigger.put(buf);
+                buf = bigger;
+            }
+        }
+
+        void begin() throws IOException {
+            ensure(64);
+            recordStart = buf.position();
+            buf.putInt(0); // patched in end()
+        }
+
+        void end() {
+            buf.putInt(recordStart, buf.position() - recordStart - 4);
+            recordStart = -1;
+        }
+
+        void string(String s) throws IOException {
+            if (s == null) {
+                ensure(2 + 64);
+                buf.putShort((short) NULL_STRING);
+                return;
+            }
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            if (b.length >= NULL_STRING) throw new IOException("String too long for snapshot: " + b.length + " bytes");
+            ensure(2 + b.length + 64);
+            buf.putShort((short) b.length);
+            buf.put(b);
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) ch.write(buf);
+            buf.clear();
+        }
+    }
+
+    // buffered channel reader that refills on demand
+    private static class In {
+        final FileChannel ch;
+        ByteBuffer buf = ByteBuffer.allocate(BUFFER);
+        boolean nullStrings; // version 1 had no null marker
+
+        In(FileChannel ch) throws IOException {
+            this.ch = ch;
+            buf.flip();
+        }
+
+        void need(int n) throws IOException {
+            if (buf.remaining() >= n) return;
+            if (buf.capacity() < n) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(n, buf.capacity() * 2));
+                bigger.put(buf);
+                buf = bigger;
+            } else {
+                buf.compact();
+            }
+            while (buf.position() < n) {
+                if (ch.read(buf) < 0) throw new IOException("Truncated snapshot");
+            }
+            buf.flip();
+        }
+
+        // load a whole length-prefixed record into the buffer
+        void record() throws IOException {
+            need(4);
+            int len = buf.getInt();
+            need(len);
+        }
+
+        String string() throws IOException {
+            need(2);
+            int len = buf.getShort() & 0xFFFF;
+            if (len == NULL_STRING && nullStrings) return null;
+            need(len);
+            String s;
+            if (buf.hasArray()) {
+                s = new String(buf.array(), buf.arrayOffset() + buf.position(), len, StandardCharsets.UTF_8);
+                buf.position(buf.position() + len);
+            } else {
+                byte[] b = new byte[len];
+                buf.get(b);
+                s = new String(b, StandardCharsets.UTF_8);
+            }
+            return s;
+        }
+    }
+}
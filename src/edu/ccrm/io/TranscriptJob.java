@@ -0,0 +1,147 @@
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.StudentService;
+import edu.ccrm.service.TranscriptRenderer;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+
+/**
+ * End-of-term batch job: transcripts for every (or every matching) student, rendered in
+ * parallel on a work-stealing pool, plus a GPA report computed in the same pass.
+ *
+ * Students are split into chunks that run as independent fork-join tasks, each with its own
+ * {@link TranscriptRenderer}. With {@link Layout#SHARDED} every chunk writes one
+ * {@code transcripts-NNNNN.txt}; with {@link Layout#PER_STUDENT} every student gets
+ * {@code <regNo>.txt}, with unsafe characters percent-encoded. The GPA of each transcript is taken from the rows just rendered
+ * and written to {@code gpa_report.csv} (regNo,name,gradedCredits,gpa) in student order.
+ */
+public class TranscriptJob {
+
+    public enum Layout { PER_STUDENT, SHARDED }
+
+    static final String GPA_REPORT = "gpa_report.csv";
+    private static final int WRITE_BUFFER = 64 * 1024;
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final StudentService studentService;
+    private final int parallelism;
+
+    public TranscriptJob(StudentService studentService, int parallelism) {
+        this.studentService = studentService;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public TranscriptJob(StudentService studentService) {
+        this(studentService, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ExportReport run(Path outDir, Layout layout) throws IOException {
+        return run(outDir, layout, s -> true);
+    }
+
+    public ExportReport run(Path outDir, Layout layout, Predicate<Student> filter) throws IOException {
+        Files.createDirectories(outDir);
+        long start = System.nanoTime();
+        List<Student> students = new ArrayList<>();
+        for (Student s : studentService.listStudents()) {
+            if (filter.test(s)) students.add(s);
+        }
+        // a few chunks per worker so stealing can even out uneven transcripts
+        int chunks = Math.max(1, Math.min(parallelism * 4, (students.size() + 999) / 1000));
+        int per = (students.size() + chunks - 1) / Math.max(1, chunks);
+
+        ExportReport report = new ExportReport(outDir);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<Future<StringBuilder>> parts = new ArrayList<>(chunks);
+            for (int i = 0; i < chunks; i++) {
+                int from = Math.min(i * per, students.size());
+                int to = Math.min(from + per, students.size());
+                int shard = i;
+                parts.add(pool.submit(() -> layout == Layout.SHARDED
+                        ? writeShard(outDir, shard, students.subList(from, to), report)
+                        : writeEach(outDir, students.subList(from, to), report)));
+            }
+            try (Writer gpa = Files.newBufferedWriter(outDir.resolve(GPA_REPORT), StandardCharsets.UTF_8)) {
+                for (Future<StringBuilder> part : parts) gpa.append(await(part));
+            }
+            report.wrote(GPA_REPORT, students.size());
+        } finally {
+            pool.shutdownNow();
+        }
+        report.finish(System.nanoTime() - start);
+        return report;
+    }
+
+    private StringBuilder writeShard(Path outDir, int shard, List<Student> chunk, ExportReport report) throws IOException {
+        String name = String.format("transcripts-%05d.txt", shard);
+        TranscriptRenderer renderer = new TranscriptRenderer(WRITE_BUFFER);
+        StringBuilder gpa = new StringBuilder(chunk.size() * 48);
+        try (Writer w = Files.newBufferedWriter(outDir.resolve(name), StandardCharsets.UTF_8)) {
+            for (Student s : chunk) {
+                renderer.append(s, w);
+                gpaRow(gpa, s, renderer);
+            }
+            renderer.flush(w);
+        }
+        report.wrote(name, chunk.size());
+        return gpa;
+    }
+
+    private StringBuilder writeEach(Path outDir, List<Student> chunk, ExportReport report) throws IOException {
+        TranscriptRenderer renderer = new TranscriptRenderer(WRITE_BUFFER);
+        StringBuilder gpa = new StringBuilder(chunk.size() * 48);
+        for (Student s : chunk) {
+            try (Writer w = Files.newBufferedWriter(outDir.resolve(fileName(s.getRegNo())), StandardCharsets.UTF_8)) {
+                renderer.render(s, w);
+            }
+            gpaRow(gpa, s, renderer);
+        }
+        report.wrote("per-student", chunk.size());
+        return gpa;
+    }
+
+    private static void gpaRow(StringBuilder gpa, Student s, TranscriptRenderer r) {
+        gpa.append(s.getRegNo()).append(',').append(s.getFullName()).append(',').append(r.lastGradedCredits()).append(',');
+        TranscriptRenderer.appendGpa(gpa, r.lastGradePoints(), r.lastGradedCredits()).append('\n');
+    }
+
+    // regNos are user input: keep them from naming paths outside the output folder. Anything
+    // but ASCII letters, digits, '-' and '_' is percent-encoded (UTF-8 bytes, '%' included),
+    // so distinct regNos never share a file and chunks cannot overwrite each other.
+    static String fileName(String regNo) {
+        StringBuilder sb = new StringBuilder(regNo.length() + 4);
+        for (byte b : regNo.getBytes(StandardCharsets.UTF_8)) {
+            int ch = b & 0xFF;
+            if ((ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z') || (ch >= '0' && ch <= '9') || ch == '-' || ch == '_') {
+                sb.append((char) ch);
+            } else {
+                sb.append('%').append(HEX[ch >>> 4]).append(HEX[ch & 0xF]);
+            }
+        }
+        return sb.append(".txt").toString();
+    }
+
+    private static <T> T await(Future<T> f) throws IOException {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Transcript job interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException("Transcript job failed: " + e.getCause(), e.getCause());
+        }
+    }
+}
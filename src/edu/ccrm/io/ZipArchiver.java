@@ -0,0 +1,362 @@
+package edu.ccrm.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Writes a directory tree as one zip archive, deflating files in parallel.
+ *
+ * Each file is compressed independently on a fork-join pool; the calling thread writes
+ * the finished entries in order, so the archive layout is deterministic. Compressed data
+ * up to {@code SPILL_BYTES} is kept in memory, larger results are spooled to a temp file
+ * and moved into the archive with {@link FileChannel#transferTo}. Files that do not
+ * shrink are stored and copied straight from the source when their entry is written; their
+ * local header is patched afterwards with the size and CRC of the bytes actually copied.
+ * Sizes and CRCs always describe the bytes read, not the directory listing, so a file
+ * that changes while archiving cannot corrupt the archive. At most
+ * {@code 2 * parallelism} files are in flight.
+ *
+ * Plain zip without zip64: archives are limited to 4 GiB and 65535 entries.
+ */
+public class ZipArchiver {
+
+    static final int SPILL_BYTES = 4 << 20;
+    private static final int READ_BUFFER = 64 * 1024;
+    private static final long MAX_32 = 0xFFFFFFFFL;
+
+    private final int parallelism;
+    private final int level;
+
+    public ZipArchiver(int parallelism, int level) {
+        this.parallelism = Math.max(1, parallelism);
+        this.level = level;
+    }
+
+    public ZipArchiver() {
+        this(Runtime.getRuntime().availableProcessors(), Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /** Archive every file and directory below {@code sourceDir}; returns the archive size. */
+    public long archive(Path sourceDir, Path zipFile) throws IOException {
+        List<Item> items = list(sourceDir);
+        if (items.size() > 0xFFFF) throw new IOException("Too many entries for a zip without zip64: " + items.size());
+        Path tmp = zipFile.resolveSibling(zipFile.getFileName() + ".tmp");
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        ByteArrayOutputStream central = new ByteArrayOutputStream();
+        Deque<Future<Packed>> inFlight = new ArrayDeque<>();
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            int next = 0;
+            while (next < items.size() || !inFlight.isEmpty()) {
+                while (next < items.size() && inFlight.size() < 2 * parallelism) {
+                    Item item = items.get(next++);
+                    inFlight.addLast(pool.submit(() -> pack(item)));
+                }
+                Packed p = await(inFlight.removeFirst());
+                try {
+                    long offset = out.position();
+                    if (offset > MAX_32) throw new IOException("Archive exceeds 4 GiB, zip64 is not supported");
+                    writeFully(out, localHeader(p));
+                    if (p.writeData(out)) writeFully(out, localHeader(p), offset); // stored: actual size and CRC
+                    if (p.compressedSize > MAX_32 || p.size > MAX_32) {
+                        throw new IOException("Archive exceeds 4 GiB, zip64 is not supported");
+                    }
+                    central.write(centralHeader(p, offset));
+                } finally {
+                    p.discard();
+                }
+            }
+            long cdOffset = out.position();
+            writeFully(out, ByteBuffer.wrap(central.toByteArray()));
+            if (cdOffset > MAX_32) throw new IOException("Archive exceeds 4 GiB, zip64 is not supported");
+            ByteBuffer end = ByteBuffer.allocate(22).order(ByteOrder.LITTLE_ENDIAN);
+            end.putInt(0x06054b50).putShort((short) 0).putShort((short) 0)
+                    .putShort((short) items.size()).putShort((short) items.size())
+                    .putInt(central.size()).putInt((int) cdOffset).putShort((short) 0);
+            writeFully(out, end.flip());
+            out.force(false);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        } finally {
+            // after a failure, let the tasks still running finish so their spill files can be removed
+            for (Future<Packed> f : inFlight) {
+                try {
+                    f.get().discard();
+                } catch (Exception ignored) {
+                    // a task that failed has already cleaned up after itself
+                }
+            }
+            pool.shutdownNow();
+        }
+        Files.move(tmp, zipFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return Files.size(zipFile);
+    }
+
+    /** Unpack an archive into {@code targetDir}, inflating entries in parallel. Returns files written. */
+    public int extract(Path zipFile, Path targetDir) throws IOException {
+        Path root = targetDir.toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try (ZipFile zip = new ZipFile(zipFile.toFile(), StandardCharsets.UTF_8)) {
+            List<Future<Boolean>> tasks = new ArrayList<>();
+            for (ZipEntry e : Collections.list(zip.entries())) {
+                Path dest = root.resolve(e.getName()).normalize();
+                if (!dest.startsWith(root)) throw new IOException("Entry escapes target folder: " + e.getName());
+                if (e.isDirectory()) {
+                    Files.createDirectories(dest);
+                    continue;
+                }
+                tasks.add(pool.submit(() -> {
+                    Files.createDirectories(dest.getParent());
+                    try (InputStream in = zip.getInputStream(e)) {
+                        Files.copy(in, dest, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    if (e.getLastModifiedTime() != null) Files.setLastModifiedTime(dest, e.getLastModifiedTime());
+                    return true;
+                }));
+            }
+            for (Future<Boolean> t : tasks) await(t);
+            return tasks.size();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // ---------------- compression (worker threads) ----------------
+
+    private Packed pack(Item item) throws IOException {
+        Packed p = new Packed(item);
+        if (item.directory) return p;
+        CRC32 crc = new CRC32();
+        Deflater deflater = new Deflater(level, true);
+        byte[] inBuf = new byte[READ_BUFFER];
+        byte[] outBuf = new byte[READ_BUFFER];
+        ByteBuffer in = ByteBuffer.wrap(inBuf);
+        try (FileChannel ch = FileChannel.open(item.file, StandardOpenOption.READ);
+             Spool spool = new Spool()) {
+            int n;
+            long read = 0;
+            while ((n = ch.read(in.clear())) != -1) {
+                read += n;
+                crc.update(inBuf, 0, n);
+                deflater.setInput(inBuf, 0, n);
+                while (!deflater.needsInput()) spool.write(outBuf, 0, deflater.deflate(outBuf));
+            }
+            deflater.finish();
+            while (!deflater.finished()) spool.write(outBuf, 0, deflater.deflate(outBuf));
+            p.crc = crc.getValue();
+            p.size = read;
+            if (deflater.getBytesWritten() < read) {
+                p.method = ZipEntry.DEFLATED;
+                p.compressedSize = deflater.getBytesWritten();
+                p.memory = spool.memory;
+                p.spilled = spool.temp;
+                spool.temp = null; // ownership moves to Packed
+            } else {
+                p.compressedSize = read; // stored; data is copied from the source file when written
+            }
+        } finally {
+            deflater.end();
+        }
+        return p;
+    }
+
+    // in-memory buffer that spills to a temp file once it passes SPILL_BYTES
+    private static class Spool extends OutputStream {
+        Bytes memory = new Bytes();
+        Path temp;
+        private OutputStream file;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return;
+            if (file == null && memory.size() + len > SPILL_BYTES) {
+                temp = Files.createTempFile("ccrm-zip", ".part");
+                file = Files.newOutputStream(temp);
+                memory.writeTo(file);
+                memory = null;
+            }
+            if (file != null) file.write(b, off, len);
+            else memory.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (file != null) file.close();
+            if (temp != null) Files.deleteIfExists(temp); // only still set if the result is discarded
+        }
+    }
+
+    private static class Bytes extends ByteArrayOutputStream {
+        ByteBuffer view() { return ByteBuffer.wrap(buf, 0, count); }
+    }
+
+    // ---------------- archive layout (calling thread) ----------------
+
+    private static ByteBuffer localHeader(Packed p) {
+        ByteBuffer h = ByteBuffer.allocate(30 + p.item.name.length).order(ByteOrder.LITTLE_ENDIAN);
+        h.putInt(0x04034b50).putShort((short) 20).putShort((short) 0x0800) // UTF-8 names
+                .putShort((short) p.method).putInt(p.item.dosTime)
+                .putInt((int) p.crc).putInt((int) p.compressedSize).putInt((int) p.size)
+                .putShort((short) p.item.name.length).putShort((short) 0).put(p.item.name);
+        return h.flip();
+    }
+
+    private static byte[] centralHeader(Packed p, long offset) {
+        ByteBuffer h = ByteBuffer.allocate(46 + p.item.name.length).order(ByteOrder.LITTLE_ENDIAN);
+        h.putInt(0x02014b50).putShort((short) 20).putShort((short) 20).putShort((short) 0x0800)
+                .putShort((short) p.method).putInt(p.item.dosTime)
+                .putInt((int) p.crc).putInt((int) p.compressedSize).putInt((int) p.size)
+                .putShort((short) p.item.name.length).putShort((short) 0).putShort((short) 0)
+                .putShort((short) 0).putShort((short) 0).putInt(0).putInt((int) offset).put(p.item.name);
+        return h.array();
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer b) throws IOException {
+        while (b.hasRemaining()) out.write(b);
+    }
+
+    // positional write; leaves the channel position alone
+    private static void writeFully(FileChannel out, ByteBuffer b, long at) throws IOException {
+        while (b.hasRemaining()) at += out.write(b, at);
+    }
+
+    private static void transferAll(Path from, long count, FileChannel out) throws IOException {
+        try (FileChannel in = FileChannel.open(from, StandardOpenOption.READ)) {
+            long pos = 0;
+            while (pos < count) {
+                long n = in.transferTo(pos, count - pos, out);
+                if (n <= 0) throw new IOException("Spill file shrank while archiving: " + from);
+                pos += n;
+            }
+        }
+    }
+
+    private static List<Item> list(Path sourceDir) throws IOException {
+        List<Item> items = new ArrayList<>();
+        Files.walkFileTree(sourceDir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(sourceDir)) items.add(new Item(sourceDir, dir, attrs));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) items.add(new Item(sourceDir, file, attrs));
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return items;
+    }
+
+    private static <T> T await(Future<T> f) throws IOException {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Archive interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException("Archive failed: " + e.getCause(), e.getCause());
+        }
+    }
+
+    private static class Item {
+        final Path file;
+        final byte[] name;
+        final boolean directory;
+        final int dosTime;
+
+        Item(Path root, Path file, BasicFileAttributes attrs) {
+            this.file = file;
+            this.directory = attrs.isDirectory();
+            String rel = root.relativize(file).toString().replace('\\', '/');
+            this.name = (directory ? rel + "/" : rel).getBytes(StandardCharsets.UTF_8);
+            this.dosTime = dosTime(attrs.lastModifiedTime().toMillis());
+        }
+
+        // MS-DOS time in the low half, date in the high half, as the zip headers store them
+        private static int dosTime(long millis) {
+            LocalDateTime t = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+            if (t.getYear() < 1980) return (1 << 21) | (1 << 16);
+            return (t.getYear() - 1980) << 25 | t.getMonthValue() << 21 | t.getDayOfMonth() << 16
+                    | t.getHour() << 11 | t.getMinute() << 5 | t.getSecond() >> 1;
+        }
+    }
+
+    private static class Packed {
+        final Item item;
+        int method = ZipEntry.STORED;
+        long crc;
+        long size; // uncompressed bytes actually read
+        long compressedSize;
+        Bytes memory;
+        Path spilled;
+
+        Packed(Item item) {
+            this.item = item;
+        }
+
+        // returns true if size and CRC were re-taken from a stored copy and the local header needs patching
+        boolean writeData(FileChannel out) throws IOException {
+            if (item.directory) return false;
+            if (method == ZipEntry.STORED) {
+                copyStored(out);
+                return true;
+            }
+            if (spilled != null) transferAll(spilled, compressedSize, out);
+            else writeFully(out, memory.view());
+            return false;
+        }
+
+        // the source may have changed since pack() read it: size and CRC follow this copy
+        private void copyStored(FileChannel out) throws IOException {
+            CRC32 sum = new CRC32();
+            byte[] b = new byte[READ_BUFFER];
+            ByteBuffer buf = ByteBuffer.wrap(b);
+            long copied = 0;
+            try (FileChannel in = FileChannel.open(item.file, StandardOpenOption.READ)) {
+                int n;
+                while ((n = in.read(buf.clear())) != -1) {
+                    sum.update(b, 0, n);
+                    writeFully(out, buf.flip());
+                    copied += n;
+                }
+            }
+            crc = sum.getValue();
+            size = copied;
+            compressedSize = copied;
+        }
+
+        void discard() throws IOException {
+            memory = null;
+            if (spilled != null) Files.deleteIfExists(spilled);
+        }
+    }
+}
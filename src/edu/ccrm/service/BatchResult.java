@@ -0,0 +1,40 @@
+package edu.ccrm.service;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Per-item outcomes of a batch call, index-aligned with the request list, plus totals per outcome.
+ */
+public class BatchResult {
+    private final EnrollmentOutcome[] outcomes;
+    private final int[] counts = new int[EnrollmentOutcome.values().length];
+
+    BatchResult(int size) {
+        this.outcomes = new EnrollmentOutcome[size];
+    }
+
+    void set(int index, EnrollmentOutcome outcome) {
+        outcomes[index] = outcome;
+        counts[outcome.ordinal()]++;
+    }
+
+    public int size() { return outcomes.length; }
+    public EnrollmentOutcome outcome(int index) { return outcomes[index]; }
+    public int count(EnrollmentOutcome outcome) { return counts[outcome.ordinal()]; }
+    public int succeeded() { return count(EnrollmentOutcome.SUCCESS); }
+    public int failed() { return outcomes.length - succeeded(); }
+
+    public Map<EnrollmentOutcome, Integer> summary() {
+        Map<EnrollmentOutcome, Integer> m = new EnumMap<>(EnrollmentOutcome.class);
+        for (EnrollmentOutcome o : EnrollmentOutcome.values()) {
+            if (counts[o.ordinal()] > 0) m.put(o, counts[o.ordinal()]);
+        }
+        return m;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult " + size() + " items " + summary();
+    }
+}
@@ -0,0 +1,50 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Semester;
+
+/**
+ * Combined course filter for {@link CourseService#search}. Unset fields match everything;
+ * set fields are ANDed together. Text fields compare case-insensitively.
+ */
+public class CourseQuery {
+
+    private final String department;
+    private final String instructor;
+    private final Semester semester;
+    private final int minCredits;
+    private final int maxCredits;
+
+    private CourseQuery(Builder b) {
+        this.department = b.department;
+        this.instructor = b.instructor;
+        this.semester = b.semester;
+        this.minCredits = b.minCredits;
+        this.maxCredits = b.maxCredits;
+    }
+
+    public String getDepartment() { return department; }
+    public String getInstructor() { return instructor; }
+    public Semester getSemester() { return semester; }
+    public int getMinCredits() { return minCredits; }
+    public int getMaxCredits() { return maxCredits; }
+
+    boolean hasCreditRange() {
+        return minCredits > Integer.MIN_VALUE || maxCredits < Integer.MAX_VALUE;
+    }
+
+    public static class Builder {
+        private String department;
+        private String instructor;
+        private Semester semester;
+        private int minCredits = Integer.MIN_VALUE;
+        private int maxCredits = Integer.MAX_VALUE;
+
+        public Builder department(String d) { this.department = d; return this; }
+        public Builder instructor(String fullName) { this.instructor = fullName; return this; }
+        public Builder semester(Semester s) { this.semester = s; return this; }
+        public Builder minCredits(int c) { this.minCredits = c; return this; }
+        public Builder maxCredits(int c) { this.maxCredits = c; return this; }
+        public Builder credits(int min, int max) { this.minCredits = min; this.maxCredits = max; return this; }
+        public CourseQuery build() { return new CourseQuery(this); }
+    }
+}
@@ -2,46 +2,233 @@ package edu.ccrm.service;
 
 import edu.ccrm.domain.Course;
 import edu.ccrm.domain.Instructor;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.util.EventSink;
+import edu.ccrm.util.Keys;
+import edu.ccrm.util.TextIndex;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * CourseService with Stream filters.
+ * CourseService with a course catalog indexed by code, department, instructor,
+ * semester and credits. Index buckets are kept sorted by course code, so searches
+ * return courses in code order without scanning or sorting the catalog.
+ * Titles and codes are also in a word index for typeahead search.
  */
 public class CourseService {
 
-    private final List<Course> courses = new ArrayList<>();
+    private static final Comparator<Course> BY_CODE = Comparator.comparing(Course::getCode, String.CASE_INSENSITIVE_ORDER);
+
+    private final List<Course> courses = new CopyOnWriteArrayList<>(); // rarely written, often read
+    private final Map<String, Course> byCode = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> byDepartment = new ConcurrentHashMap<>();
+    private final Map<String, Bucket> byInstructor = new ConcurrentHashMap<>();
+    private final Map<Semester, Bucket> bySemester = new EnumMap<>(Semester.class); // filled once, read-only after
+    private final NavigableMap<Integer, Bucket> byCredits = new ConcurrentSkipListMap<>();
+    private final TextIndex<Course> titleIndex = new TextIndex<>();
+    private volatile MutationListener listener = MutationListener.NONE;
+    private volatile EventSink events = EventSink.NONE;
+
+    public CourseService() {
+        for (Semester s : Semester.values()) bySemester.put(s, new Bucket());
+    }
+
+    public void setMutationListener(MutationListener l) {
+        this.listener = l == null ? MutationListener.NONE : l;
+    }
+
+    public void setEventSink(EventSink sink) {
+        this.events = sink == null ? EventSink.NONE : sink;
+    }
 
     public void addCourse(Course c) {
+        if (byCode.putIfAbsent(Keys.of(c.getCode()), c) != null) {
+            events.warn("Duplicate course code, course not added.");
+            return;
+        }
         courses.add(c);
-        System.out.println("Added course: " + c);
+        index(c);
+        listener.courseAdded(c);
+        listener.commit();
+        events.info("Added course: ", c);
+    }
+
+    /**
+     * Silent bulk add for importers. Duplicate codes are skipped; returns the number added.
+     */
+    public int addCourses(Collection<Course> batch) {
+        List<Course> added = new ArrayList<>(batch.size());
+        for (Course c : batch) {
+            if (byCode.putIfAbsent(Keys.of(c.getCode()), c) == null) added.add(c);
+        }
+        courses.addAll(added); // one copy of the copy-on-write list per batch
+        for (Course c : added) {
+            index(c);
+            listener.courseAdded(c);
+        }
+        listener.commit();
+        return added.size();
     }
 
     public List<Course> listCourses() { return List.copyOf(courses); }
 
     public Optional<Course> findByCode(String code) {
-        return courses.stream().filter(c -> c.getCode().equalsIgnoreCase(code)).findFirst();
+        return Optional.ofNullable(byCode.get(Keys.of(code)));
+    }
+
+    /**
+     * Typeahead search: courses whose title words or code start with the words typed
+     * ("intro prog"). Falls back to a typo-tolerant match when nothing starts that way.
+     */
+    public List<Course> searchByTitle(String query, int limit) {
+        List<Course> hits = titleIndex.prefix(query, limit);
+        return hits.isEmpty() ? titleIndex.fuzzy(query, limit) : hits;
     }
 
     public List<Course> searchByDepartment(String dept) {
-        return courses.stream()
-                .filter(c -> c.getDepartment().equalsIgnoreCase(dept))
-                .collect(Collectors.toList());
+        return List.copyOf(bucket(byDepartment, Keys.of(dept)).courses);
+    }
+
+    public List<Course> searchBySemester(Semester semester) {
+        return semester == null ? List.of() : List.copyOf(bySemester.get(semester).courses);
     }
 
     public List<Course> searchByInstructor(String instrName) {
-        return courses.stream()
-                .filter(c -> c.getInstructor() != null && c.getInstructor().getFullName().equalsIgnoreCase(instrName))
-                .collect(Collectors.toList());
+        return List.copyOf(bucket(byInstructor, Keys.of(instrName)).courses);
+    }
+
+    /**
+     * Courses matching every set field of the query, in code order. The smallest candidate
+     * set among the instructor, department, semester and credit-range indexes drives the
+     * search (sizes come from per-bucket counters) and the other fields are checked per
+     * candidate.
+     */
+    public List<Course> search(CourseQuery q) {
+        String dept = q.getDepartment() == null ? null : Keys.of(q.getDepartment());
+        String instr = q.getInstructor() == null ? null : Keys.of(q.getInstructor());
+        Semester sem = q.getSemester();
+        Collection<Course> candidates = null;
+        int best = Integer.MAX_VALUE;
+        if (instr != null) {
+            Bucket b = bucket(byInstructor, instr);
+            candidates = b.courses;
+            best = b.size();
+        }
+        if (dept != null) {
+            Bucket b = bucket(byDepartment, dept);
+            if (b.size() < best) {
+                candidates = b.courses;
+                best = b.size();
+            }
+        }
+        if (sem != null) {
+            Bucket b = bySemester.get(sem);
+            if (b.size() < best) {
+                candidates = b.courses;
+                best = b.size();
+            }
+        }
+        if (q.hasCreditRange() && creditRangeSize(q.getMinCredits(), q.getMaxCredits()) < best) {
+            candidates = creditRange(q.getMinCredits(), q.getMaxCredits());
+        }
+        if (candidates == null) {
+            List<Course> all = new ArrayList<>(courses);
+            all.sort(BY_CODE);
+            return all;
+        }
+
+        List<Course> out = new ArrayList<>();
+        for (Course c : candidates) {
+            if (instr != null && (c.getInstructor() == null || !Keys.of(c.getInstructor().getFullName()).equals(instr))) continue;
+            if (dept != null && !Keys.of(c.getDepartment()).equals(dept)) continue;
+            if (sem != null && c.getSemester() != sem) continue;
+            if (c.getCredits() < q.getMinCredits() || c.getCredits() > q.getMaxCredits()) continue;
+            out.add(c);
+        }
+        return out;
+    }
+
+    private int creditRangeSize(int min, int max) {
+        if (min > max) return 0;
+        int n = 0;
+        for (Bucket b : byCredits.subMap(min, true, max, true).values()) n += b.size();
+        return n;
+    }
+
+    private List<Course> creditRange(int min, int max) {
+        if (min > max) return List.of();
+        List<Course> out = new ArrayList<>();
+        for (Bucket b : byCredits.subMap(min, true, max, true).values()) out.addAll(b.courses);
+        out.sort(BY_CODE);
+        return out;
+    }
+
+    // code-ordered index bucket; ConcurrentSkipListSet.size() walks the set, so the size is counted alongside
+    private static final class Bucket {
+        static final Bucket EMPTY = new Bucket();
+
+        final Set<Course> courses = new ConcurrentSkipListSet<>(BY_CODE);
+        private final AtomicInteger size = new AtomicInteger();
+
+        void add(Course c) {
+            if (courses.add(c)) size.incrementAndGet();
+        }
+
+        void remove(Course c) {
+            if (courses.remove(c)) size.decrementAndGet();
+        }
+
+        int size() {
+            return size.get();
+        }
+    }
+
+    private static Bucket bucket(Map<String, Bucket> index, String key) {
+        Bucket b = index.get(key);
+        return b == null ? Bucket.EMPTY : b;
+    }
+
+    private static void indexUnder(Map<String, Bucket> index, String key, Course c) {
+        index.computeIfAbsent(key, k -> new Bucket()).add(c);
+    }
+
+    private void index(Course c) {
+        indexUnder(byDepartment, Keys.of(c.getDepartment()), c);
+        if (c.getSemester() != null) bySemester.get(c.getSemester()).add(c);
+        byCredits.computeIfAbsent(c.getCredits(), k -> new Bucket()).add(c);
+        Instructor ins = c.getInstructor();
+        if (ins != null) indexUnder(byInstructor, Keys.of(ins.getFullName()), c);
+        titleIndex.put(c, c.getTitle(), c.getCode());
     }
 
     public void assignInstructor(String courseCode, Instructor instructor) {
-        findByCode(courseCode).ifPresentOrElse(c -> {
+        if (changeInstructor(courseCode, instructor)) events.info("Assigned instructor to ", courseCode);
+        else events.warn("Course not found.");
+    }
+
+    /**
+     * Silent variant of {@link #assignInstructor} that keeps the instructor index current;
+     * returns false if the course does not exist.
+     */
+    public boolean changeInstructor(String courseCode, Instructor instructor) {
+        Course c = byCode.get(Keys.of(courseCode));
+        if (c == null) return false;
+        synchronized (c) {
+            Instructor old = c.getInstructor();
+            if (old != null) {
+                Bucket b = byInstructor.get(Keys.of(old.getFullName()));
+                if (b != null) b.remove(c);
+            }
             c.setInstructor(instructor);
-            System.out.println("Assigned instructor to " + courseCode);
-        }, () -> System.out.println("Course not found."));
+            if (instructor != null) indexUnder(byInstructor, Keys.of(instructor.getFullName()), c);
+            listener.instructorAssigned(c);
+        }
+        listener.commit();
+        return true;
     }
 }
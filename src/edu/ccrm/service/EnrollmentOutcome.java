@@ -0,0 +1,18 @@
+package edu.ccrm.service;
+
+/**
+ * Result of one enroll / unenroll / grade operation, used by the batch API instead of exceptions.
+ */
+public enum EnrollmentOutcome {
+    SUCCESS,
+    DUPLICATE,
+    OVER_LIMIT,
+    WAITLISTED,
+    COURSE_FULL,
+    STUDENT_NOT_FOUND,
+    COURSE_NOT_FOUND,
+    NOT_ENROLLED,
+    INVALID;
+
+    public boolean isSuccess() { return this == SUCCESS; }
+}
@@ -0,0 +1,35 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Grade;
+
+/**
+ * One (regNo, courseCode[, grade]) item of a batch enrollment call.
+ */
+public final class EnrollmentRequest {
+    private final String regNo;
+    private final String courseCode;
+    private final Grade grade;
+
+    public EnrollmentRequest(String regNo, String courseCode, Grade grade) {
+        this.regNo = regNo;
+        this.courseCode = courseCode;
+        this.grade = grade;
+    }
+
+    public static EnrollmentRequest of(String regNo, String courseCode) {
+        return new EnrollmentRequest(regNo, courseCode, null);
+    }
+
+    public static EnrollmentRequest graded(String regNo, String courseCode, Grade grade) {
+        return new EnrollmentRequest(regNo, courseCode, grade);
+    }
+
+    public String getRegNo() { return regNo; }
+    public String getCourseCode() { return courseCode; }
+    public Grade getGrade() { return grade; }
+
+    @Override
+    public String toString() {
+        return regNo + " -> " + courseCode + (grade == null ? "" : " : " + grade);
+    }
+}
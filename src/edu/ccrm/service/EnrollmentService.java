@@ -1,148 +1,507 @@
 package edu.ccrm.service;
 
 import edu.ccrm.domain.*;
+import edu.ccrm.exception.CourseFullException;
 import edu.ccrm.exception.DuplicateEnrollmentException;
 import edu.ccrm.exception.MaxCreditLimitExceededException;
+import edu.ccrm.exception.NotFoundException;
+import edu.ccrm.util.EventSink;
+import edu.ccrm.util.Keys;
 
 import java.util.*;
-import java.util.function.Function;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * EnrollmentService handles enroll/unenroll, grade recording, GPA reports.
  * Demonstrates custom exceptions, streams, lambdas and maps.
+ * Enrollments are stored keyed by (regNo, courseCode) with a per-student and a
+ * per-course adjacency map, so duplicate checks, grading and unenrollment are O(1).
+ * Safe for concurrent use: mutations for one student run under that student's lock
+ * stripe, so the duplicate and max-credit checks are atomic with the insert.
+ * Courses with a capacity hand out seats through an atomic counter; overflow goes to a
+ * per-course FIFO {@link Waitlist} that is promoted when a seat is released.
+ * Every mutation also moves the student within a {@link GpaHistogram}, so GPA reports
+ * never regroup enrollments.
  */
 public class EnrollmentService {
 
-    private final List<Enrollment> enrollments = new ArrayList<>();
+    private static final int LOCK_STRIPES = 256; // power of two
+
+    // regNo key -> (course code key -> enrollment)
+    private final Map<String, Map<String, Enrollment>> byStudent = new ConcurrentHashMap<>();
+    // course code key -> (regNo key -> enrollment)
+    private final Map<String, Map<String, Enrollment>> byCourse = new ConcurrentHashMap<>();
+    // course code key -> waitlist, created on first overflow
+    private final Map<String, Waitlist> waitlists = new ConcurrentHashMap<>();
+    private final Object[] studentLocks = new Object[LOCK_STRIPES];
     private final StudentService studentService;
     private final CourseService courseService;
     private final int MAX_CREDITS_PER_SEMESTER = 20;
+    private volatile MutationListener listener = MutationListener.NONE;
+    private volatile EventSink events = EventSink.NONE;
+    private final Metrics metrics = Metrics.shared();
+    private final GpaHistogram gpaHistogram = new GpaHistogram();
+    // renderers are not thread-safe; one per thread keeps its buffer across calls
+    private final ThreadLocal<TranscriptRenderer> renderer = ThreadLocal.withInitial(TranscriptRenderer::new);
 
     public EnrollmentService(StudentService ss, CourseService cs) {
         this.studentService = ss;
         this.courseService = cs;
+        for (int i = 0; i < studentLocks.length; i++) studentLocks[i] = new Object();
+    }
+
+    public void setMutationListener(MutationListener l) {
+        this.listener = l == null ? MutationListener.NONE : l;
+    }
+
+    public void setEventSink(EventSink sink) {
+        this.events = sink == null ? EventSink.NONE : sink;
+    }
+
+    private Object lockFor(String studentKey) {
+        int h = studentKey.hashCode();
+        return studentLocks[(h ^ (h >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    // first enrollment's student, or null if the map was emptied concurrently
+    private static Student ownerOf(Map<String, Enrollment> studentMap) {
+        Iterator<Enrollment> it = studentMap.values().iterator();
+        return it.hasNext() ? it.next().getStudent() : null;
     }
 
     public void enrollByRegNo(String regNo, String courseCode) throws Exception {
+        long start = metrics.start();
+        try {
+            enrollChecked(regNo, courseCode);
+        } catch (Exception e) {
+            metrics.failed(Metrics.Op.ENROLL, e);
+            throw e;
+        } finally {
+            metrics.record(Metrics.Op.ENROLL, start);
+        }
+    }
+
+    private void enrollChecked(String regNo, String courseCode) throws Exception {
         var stuOpt = studentService.findByRegNo(regNo);
         var courseOpt = courseService.findByCode(courseCode);
-        if (stuOpt.isEmpty()) throw new Exception("Student not found.");
-        if (courseOpt.isEmpty()) throw new Exception("Course not found.");
+        if (stuOpt.isEmpty()) throw new NotFoundException("Student not found.");
+        if (courseOpt.isEmpty()) throw new NotFoundException("Course not found.");
 
         Student s = stuOpt.get();
         Course c = courseOpt.get();
+        int[] position = {-1};
+        EnrollmentOutcome outcome = enroll(s, c, true, position);
+        if (outcome == EnrollmentOutcome.WAITLISTED) outcome = recheckSeats(s, c);
+        listener.commit();
+        switch (outcome) {
+            case DUPLICATE -> throw new DuplicateEnrollmentException("Already enrolled.");
+            case OVER_LIMIT -> throw new MaxCreditLimitExceededException("Would exceed max credits (" + MAX_CREDITS_PER_SEMESTER + ").");
+            case WAITLISTED -> throw new CourseFullException(position[0] > 0
+                    ? "Course full; waitlisted at position " + position[0] + "."
+                    : "Course full; waitlisted.");
+            default -> {
+                if (events.isEnabled(EventSink.Level.INFO)) events.info("Enrolled " + s.getRegNo() + " into ", c.getCode());
+            }
+        }
+    }
 
-        // check duplicate
-        boolean already = enrollments.stream().anyMatch(e -> e.getStudent() == s && e.getCourse() == c);
-        if (already) throw new DuplicateEnrollmentException("Already enrolled.");
+    // core enroll path shared by the single and batch APIs; never throws or prints
+    private EnrollmentOutcome enroll(Student s, Course c, boolean waitlistWhenFull) {
+        return enroll(s, c, waitlistWhenFull, null);
+    }
 
-        // check max credits
-        int currentCredits = enrollments.stream()
-                .filter(e -> e.getStudent() == s)
-                .mapToInt(e -> e.getCourse().getCredits())
-                .sum();
-        if (currentCredits + c.getCredits() > MAX_CREDITS_PER_SEMESTER) {
-            throw new MaxCreditLimitExceededException("Would exceed max credits (" + MAX_CREDITS_PER_SEMESTER + ").");
-        }
+    // waitlistPosition, if given, receives the 1-based position taken when WAITLISTED (-1 if unknown)
+    private EnrollmentOutcome enroll(Student s, Course c, boolean waitlistWhenFull, int[] waitlistPosition) {
+        String sKey = Keys.of(s.getRegNo());
+        String cKey = Keys.of(c.getCode());
 
-        Enrollment en = new Enrollment(s, c);
-        enrollments.add(en);
-        s.addEnrollment(en);
-        System.out.println("Enrolled " + s.getRegNo() + " into " + c.getCode());
+        synchronized (lockFor(sKey)) {
+            // check duplicate
+            Map<String, Enrollment> studentMap = byStudent.get(sKey);
+            if (studentMap != null && studentMap.containsKey(cKey)) return EnrollmentOutcome.DUPLICATE;
+
+            // check max credits
+            if (s.getAttemptedCredits() + c.getCredits() > MAX_CREDITS_PER_SEMESTER) return EnrollmentOutcome.OVER_LIMIT;
+
+            // claim a seat last so a failed check above never holds one
+            if (!c.tryReserveSeat()) {
+                if (!waitlistWhenFull) return EnrollmentOutcome.COURSE_FULL;
+                Waitlist w = waitlists.computeIfAbsent(cKey, k -> new Waitlist());
+                int pos = w.add(s);
+                if (waitlistPosition != null) waitlistPosition[0] = pos > 0 ? pos : w.positionOf(s); // already waiting
+                return EnrollmentOutcome.WAITLISTED;
+            }
+
+            Enrollment en = new Enrollment(s, c);
+            GpaHistogram.Sample before = gpaHistogram.sample(s, c);
+            byStudent.computeIfAbsent(sKey, k -> new ConcurrentHashMap<>()).put(cKey, en);
+            byCourse.compute(cKey, (k, m) -> {
+                if (m == null) m = new ConcurrentHashMap<>();
+                m.put(sKey, en);
+                return m;
+            });
+            s.addEnrollment(en);
+            gpaHistogram.apply(before, gpaHistogram.sample(s, c), c);
+            listener.enrolled(en);
+        }
+        return EnrollmentOutcome.SUCCESS;
     }
 
     public void unenrollByRegNo(String regNo, String courseCode) {
-        Optional<Enrollment> opt = enrollments.stream()
-                .filter(e -> e.getStudent().getRegNo().equalsIgnoreCase(regNo) &&
-                        e.getCourse().getCode().equalsIgnoreCase(courseCode))
-                .findFirst();
-        opt.ifPresent(e -> {
+        Enrollment removed = unenroll(Keys.of(regNo), Keys.of(courseCode));
+        listener.commit();
+        if (removed == null) {
+            events.warn("Enrollment not found.");
+            return;
+        }
+        events.info("Unenrolled.");
+    }
+
+    // removes the enrollment and back-fills its seat from the waitlist; null if not enrolled
+    private Enrollment unenroll(String sKey, String cKey) {
+        Enrollment e;
+        synchronized (lockFor(sKey)) {
+            Map<String, Enrollment> studentMap = byStudent.get(sKey);
+            e = studentMap == null ? null : studentMap.remove(cKey);
+            if (e == null) return null;
+            if (studentMap.isEmpty()) byStudent.remove(sKey);
+            byCourse.computeIfPresent(cKey, (k, m) -> {
+                m.remove(sKey);
+                return m.isEmpty() ? null : m;
+            });
+            GpaHistogram.Sample before = gpaHistogram.sample(e.getStudent(), e.getCourse());
             e.getStudent().removeEnrollment(e);
-            enrollments.remove(e);
-            System.out.println("Unenrolled.");
-        });
-        if (opt.isEmpty()) System.out.println("Enrollment not found.");
+            gpaHistogram.apply(before, gpaHistogram.sample(e.getStudent(), e.getCourse()), e.getCourse());
+            e.getCourse().releaseSeat();
+            listener.unenrolled(e);
+        }
+        // outside the student's lock: promotion takes the waiting students' locks
+        promoteFromWaitlist(e.getCourse());
+        return e;
     }
 
     public void recordGrade(String regNo, String courseCode, Grade grade) {
-        Optional<Enrollment> opt = enrollments.stream()
-                .filter(e -> e.getStudent().getRegNo().equalsIgnoreCase(regNo) &&
-                        e.getCourse().getCode().equalsIgnoreCase(courseCode))
-                .findFirst();
-        if (opt.isEmpty()) {
-            System.out.println("Enrollment not found.");
+        if (!changeGrade(regNo, courseCode, grade)) {
+            events.warn("Enrollment not found.");
             return;
         }
-        opt.get().setGrade(grade);
-        System.out.println("Recorded grade " + grade + " for " + regNo);
+        if (events.isEnabled(EventSink.Level.INFO)) events.info("Recorded grade " + grade + " for ", regNo);
+    }
+
+    /**
+     * Silent variant of recordGrade (a null grade clears it); returns false if not enrolled.
+     */
+    public boolean changeGrade(String regNo, String courseCode, Grade grade) {
+        long start = metrics.start();
+        boolean found = grade(Keys.of(regNo), Keys.of(courseCode), grade);
+        listener.commit();
+        metrics.record(Metrics.Op.RECORD_GRADE, start);
+        if (!found) metrics.failed(Metrics.Op.RECORD_GRADE, Metrics.Failure.NOT_FOUND);
+        return found;
+    }
+
+    private boolean grade(String sKey, String cKey, Grade grade) {
+        synchronized (lockFor(sKey)) {
+            Map<String, Enrollment> studentMap = byStudent.get(sKey);
+            Enrollment e = studentMap == null ? null : studentMap.get(cKey);
+            if (e == null) return false;
+            GpaHistogram.Sample before = gpaHistogram.sample(e.getStudent(), e.getCourse());
+            e.setGrade(grade);
+            gpaHistogram.apply(before, gpaHistogram.sample(e.getStudent(), e.getCourse()), e.getCourse());
+            listener.gradeRecorded(e);
+            return true;
+        }
+    }
+
+    /**
+     * Called, outside the stripe, after {@code s} joined the waitlist of {@code c}. A seat
+     * freed between the failed reservation and the join found the waitlist empty, so no one
+     * was promoted into it; promote now. Returns SUCCESS if that enrolled {@code s}.
+     */
+    private EnrollmentOutcome recheckSeats(Student s, Course c) {
+        if (c.getSeatsFree() == 0) return EnrollmentOutcome.WAITLISTED;
+        promoteFromWaitlist(c);
+        Map<String, Enrollment> studentMap = byStudent.get(Keys.of(s.getRegNo()));
+        return studentMap != null && studentMap.containsKey(Keys.of(c.getCode()))
+                ? EnrollmentOutcome.SUCCESS : EnrollmentOutcome.WAITLISTED;
+    }
+
+    /**
+     * Fill free seats of a course from the head of its waitlist. Waiting students who can
+     * no longer be enrolled (already enrolled, over the credit limit) are dropped.
+     */
+    private void promoteFromWaitlist(Course c) {
+        Waitlist w = waitlists.get(Keys.of(c.getCode()));
+        if (w == null) return;
+        while (c.getSeatsFree() > 0) {
+            Student next = w.poll();
+            if (next == null) return;
+            EnrollmentOutcome outcome = enroll(next, c, false);
+            if (outcome == EnrollmentOutcome.COURSE_FULL) {
+                w.pushFront(next); // seat went to a concurrent request
+                return;
+            }
+            EventSink ev = events;
+            if (outcome.isSuccess()) {
+                if (ev.isEnabled(EventSink.Level.INFO)) ev.info("Promoted " + next.getRegNo() + " from waitlist into ", c.getCode());
+            } else if (ev.isEnabled(EventSink.Level.WARN)) {
+                ev.warn("Dropped " + next.getRegNo() + " from waitlist: ", outcome);
+            }
+        }
+    }
+
+    /**
+     * Re-insert a previously saved enrollment as-is: no duplicate, credit or capacity
+     * checks, no waitlisting. Used when loading snapshots and replaying journals.
+     */
+    public void restore(Enrollment en) {
+        restoreOne(en);
+        listener.commit();
+    }
+
+    /** {@link #restore} for many enrollments, committed to the listener once. */
+    public void restoreAll(Collection<Enrollment> enrollments) {
+        for (Enrollment en : enrollments) restoreOne(en);
+        listener.commit();
+    }
+
+    private void restoreOne(Enrollment en) {
+        Student s = en.getStudent();
+        String sKey = Keys.of(s.getRegNo());
+        String cKey = Keys.of(en.getCourse().getCode());
+        synchronized (lockFor(sKey)) {
+            Map<String, Enrollment> studentMap = byStudent.computeIfAbsent(sKey, k -> new ConcurrentHashMap<>());
+            if (studentMap.putIfAbsent(cKey, en) != null) return;
+            byCourse.compute(cKey, (k, m) -> {
+                if (m == null) m = new ConcurrentHashMap<>();
+                m.put(sKey, en);
+                return m;
+            });
+            en.getCourse().restoreSeat();
+            GpaHistogram.Sample before = gpaHistogram.sample(s, en.getCourse());
+            s.addEnrollment(en);
+            gpaHistogram.apply(before, gpaHistogram.sample(s, en.getCourse()), en.getCourse());
+            listener.enrolled(en);
+        }
+    }
+
+    // ---------------- BATCH API ----------------
+
+    /**
+     * Enroll every request in one pass. Each distinct regNo and course code is resolved once;
+     * failures are reported per item in the result rather than thrown or printed.
+     * Requests that carry a grade are graded right after a successful enroll.
+     */
+    public BatchResult enrollBatch(List<EnrollmentRequest> requests) {
+        BatchResult result = new BatchResult(requests.size());
+        // per-batch lookup caches, including misses, keyed like the indexes so case variants share an entry
+        Map<String, Optional<Student>> students = new HashMap<>();
+        Map<String, Optional<Course>> courses = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            EnrollmentRequest r = requests.get(i);
+            if (r == null || r.getRegNo() == null || r.getCourseCode() == null) {
+                result.set(i, EnrollmentOutcome.INVALID);
+                continue;
+            }
+            Student s = students.computeIfAbsent(Keys.of(r.getRegNo()), studentService::findByRegNo).orElse(null);
+            if (s == null) {
+                result.set(i, EnrollmentOutcome.STUDENT_NOT_FOUND);
+                continue;
+            }
+            Course c = courses.computeIfAbsent(Keys.of(r.getCourseCode()), courseService::findByCode).orElse(null);
+            if (c == null) {
+                result.set(i, EnrollmentOutcome.COURSE_NOT_FOUND);
+                continue;
+            }
+            EnrollmentOutcome outcome = enroll(s, c, true);
+            if (outcome == EnrollmentOutcome.WAITLISTED) outcome = recheckSeats(s, c);
+            if (outcome.isSuccess() && r.getGrade() != null) {
+                grade(Keys.of(s.getRegNo()), Keys.of(c.getCode()), r.getGrade());
+            }
+            result.set(i, outcome);
+        }
+        listener.commit();
+        return result;
+    }
+
+    public BatchResult unenrollBatch(List<EnrollmentRequest> requests) {
+        BatchResult result = new BatchResult(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            EnrollmentRequest r = requests.get(i);
+            if (r == null || r.getRegNo() == null || r.getCourseCode() == null) {
+                result.set(i, EnrollmentOutcome.INVALID);
+                continue;
+            }
+            Enrollment e = unenroll(Keys.of(r.getRegNo()), Keys.of(r.getCourseCode()));
+            result.set(i, e == null ? EnrollmentOutcome.NOT_ENROLLED : EnrollmentOutcome.SUCCESS);
+        }
+        listener.commit();
+        return result;
+    }
+
+    public BatchResult recordGrades(List<EnrollmentRequest> requests) {
+        BatchResult result = new BatchResult(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            EnrollmentRequest r = requests.get(i);
+            if (r == null || r.getRegNo() == null || r.getCourseCode() == null || r.getGrade() == null) {
+                result.set(i, EnrollmentOutcome.INVALID);
+                continue;
+            }
+            boolean ok = grade(Keys.of(r.getRegNo()), Keys.of(r.getCourseCode()), r.getGrade());
+            result.set(i, ok ? EnrollmentOutcome.SUCCESS : EnrollmentOutcome.NOT_ENROLLED);
+        }
+        listener.commit();
+        return result;
+    }
+
+    public List<Student> waitlist(String courseCode) {
+        Waitlist w = waitlists.get(Keys.of(courseCode));
+        return w == null ? List.of() : w.snapshot();
+    }
+
+    public boolean leaveWaitlist(String regNo, String courseCode) {
+        Waitlist w = waitlists.get(Keys.of(courseCode));
+        Optional<Student> s = studentService.findByRegNo(regNo);
+        return w != null && s.isPresent() && w.remove(s.get());
+    }
+
+    public Optional<Enrollment> find(String regNo, String courseCode) {
+        Map<String, Enrollment> studentMap = byStudent.get(Keys.of(regNo));
+        return Optional.ofNullable(studentMap == null ? null : studentMap.get(Keys.of(courseCode)));
+    }
+
+    public List<Enrollment> enrollmentsForStudent(String regNo) {
+        Map<String, Enrollment> studentMap = byStudent.get(Keys.of(regNo));
+        return studentMap == null ? List.of() : List.copyOf(studentMap.values());
+    }
+
+    public List<Enrollment> enrollmentsForCourse(String courseCode) {
+        Map<String, Enrollment> courseMap = byCourse.get(Keys.of(courseCode));
+        return courseMap == null ? List.of() : List.copyOf(courseMap.values());
+    }
+
+    /**
+     * Visit every enrollment without copying; weakly consistent under concurrent updates.
+     */
+    public void forEachEnrollment(Consumer<Enrollment> action) {
+        for (Map<String, Enrollment> studentMap : byStudent.values()) {
+            for (Enrollment e : studentMap.values()) action.accept(e);
+        }
+    }
+
+    public int enrollmentCount(String courseCode) {
+        Map<String, Enrollment> courseMap = byCourse.get(Keys.of(courseCode));
+        return courseMap == null ? 0 : courseMap.size();
     }
 
     public void printTranscript(String regNo) {
         Optional<Student> sOpt = studentService.findByRegNo(regNo);
         if (sOpt.isEmpty()) {
-            System.out.println("Student not found.");
+            events.warn("Student not found.");
             return;
         }
-        Student s = sOpt.get();
-        List<Enrollment> studsEnroll = enrollments.stream().filter(e -> e.getStudent() == s).collect(Collectors.toList());
-        System.out.println("Transcript for " + s.getFullName());
-        int totalCredits = 0;
-        int totalPoints = 0;
-        for (Enrollment e : studsEnroll) {
-            int credits = e.getCourse().getCredits();
-            Grade g = e.getGrade();
-            System.out.printf("%s | %s cr | %s\n", e.getCourse().getCode(), credits, (g == null ? "N/A" : g));
-            if (g != null) {
-                totalCredits += credits;
-                totalPoints += g.getPoints() * credits;
-            }
-        }
-        double gpa = totalCredits == 0 ? 0.0 : (double) totalPoints / totalCredits;
-        System.out.printf("GPA: %.2f\n", gpa);
+        renderer.get().renderCompact(sOpt.get(), System.out);
     }
 
-    // Simple GPA distribution computed across all students
+    /**
+     * Students per GPA band (default edges), read from the live histogram in O(buckets).
+     * Only bands with at least one student are included.
+     */
     public Map<String, Long> gpaDistribution() {
-        // For each student compute GPA and bucket it
-        Map<Student, Double> gpaMap = studentsGPA();
-        return gpaMap.values().stream()
-                .map(gpa -> {
-                    if (gpa >= 9) return "9-10";
-                    if (gpa >= 8) return "8-9";
-                    if (gpa >= 7) return "7-8";
-                    if (gpa >= 6) return "6-7";
-                    if (gpa > 0) return "0-6";
-                    return "No Grades";
-                })
-                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
-    }
-
-    // returns map student->gpa
-    private Map<Student, Double> studentsGPA() {
-        return enrollments.stream()
-                .collect(Collectors.groupingBy(Enrollment::getStudent))
-                .entrySet().stream()
-                .collect(Collectors.toMap(Map.Entry::getKey, e -> computeGPA(e.getValue())));
-    }
-
-    private double computeGPA(List<Enrollment> list) {
-        int tcr = 0; int tpt = 0;
-        for (Enrollment en : list) {
-            if (en.getGrade() != null) {
-                tcr += en.getCourse().getCredits();
-                tpt += en.getGrade().getPoints() * en.getCourse().getCredits();
+        Map<String, Long> out = new LinkedHashMap<>();
+        gpaHistogram.counts(GpaHistogram.DEFAULT_EDGES).forEach((band, n) -> {
+            if (n > 0) out.put(band, n);
+        });
+        return out;
+    }
+
+    /** Live GPA histogram with configurable edges and per-department/per-semester slices. */
+    public GpaHistogram gpaHistogram() {
+        return gpaHistogram;
+    }
+
+    public List<String> topStudents(int n) {
+        return topRanked(n).stream().map(RankedStudent::toString).collect(Collectors.toList());
+    }
+
+    /**
+     * Top n students by overall GPA, selected with a heap of size n instead of a full sort.
+     */
+    public List<RankedStudent> topRanked(int n) {
+        TopK top = new TopK(n);
+        for (Map<String, Enrollment> studentMap : byStudent.values()) {
+            Student s = ownerOf(studentMap);
+            if (s != null) top.offer(s, s.getGpa());
+        }
+        return top.result();
+    }
+
+    /**
+     * Top n students by GPA over the courses of one department only.
+     */
+    public List<RankedStudent> topRankedByDepartment(String dept, int n) {
+        return topRankedOver(courseService.searchByDepartment(dept), n);
+    }
+
+    /**
+     * Top n students by GPA over the courses of one semester only.
+     */
+    public List<RankedStudent> topRankedBySemester(Semester semester, int n) {
+        return topRankedOver(courseService.searchBySemester(semester), n);
+    }
+
+    // walks only the enrollments of the given courses, tallying {gradedCredits, points} per student
+    private List<RankedStudent> topRankedOver(List<Course> courses, int n) {
+        Map<Student, int[]> tally = new HashMap<>();
+        for (Course c : courses) {
+            Map<String, Enrollment> courseMap = byCourse.get(Keys.of(c.getCode()));
+            if (courseMap == null) continue;
+            for (Enrollment e : courseMap.values()) {
+                int[] t = tally.computeIfAbsent(e.getStudent(), k -> new int[2]);
+                if (e.getGrade() != null) {
+                    t[0] += c.getCredits();
+                    t[1] += e.getGrade().getPoints() * c.getCredits();
+                }
             }
         }
-        return tcr == 0 ? 0.0 : (double) tpt / tcr;
+        TopK top = new TopK(n);
+        tally.forEach((s, t) -> top.offer(s, t[0] == 0 ? 0.0 : (double) t[1] / t[0]));
+        return top.result();
     }
 
-    public List<String> topStudents(int n) {
-        var map = studentsGPA();
-        return map.entrySet().stream()
-                .sorted((a,b) -> Double.compare(b.getValue(), a.getValue()))
-                .limit(n)
-                .map(e -> e.getKey().getRegNo() + " : " + e.getKey().getFullName() + " -> " + String.format("%.2f", e.getValue()))
-                .collect(Collectors.toList());
+    // bounded min-heap: keeps the n best entries seen so far
+    private static class TopK {
+        private static final Comparator<RankedStudent> ORDER = Comparator
+                .comparingDouble(RankedStudent::getGpa)
+                .thenComparing(r -> r.getStudent().getRegNo(), Comparator.reverseOrder());
+        private final int n;
+        private final PriorityQueue<RankedStudent> heap;
+
+        TopK(int n) {
+            this.n = Math.max(n, 0);
+            this.heap = new PriorityQueue<>(Math.max(this.n, 1), ORDER);
+        }
+
+        void offer(Student s, double gpa) {
+            if (n == 0) return;
+            if (heap.size() < n) {
+                heap.add(new RankedStudent(s, gpa));
+            } else {
+                RankedStudent min = heap.peek();
+                if (gpa > min.getGpa() || (gpa == min.getGpa()
+                        && s.getRegNo().compareTo(min.getStudent().getRegNo()) < 0)) {
+                    heap.poll();
+                    heap.add(new RankedStudent(s, gpa));
+                }
+            }
+        }
+
+        List<RankedStudent> result() {
+            List<RankedStudent> out = new ArrayList<>(heap);
+            out.sort(ORDER.reversed());
+            return out;
+        }
     }
 }
@@ -0,0 +1,151 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.util.Keys;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * GPA distribution kept up to date as enrollments and grades change.
+ *
+ * Counts are held at a fixed resolution of 0.01 GPA (1001 slots plus "No Grades"), so any
+ * set of bucket edges that are multiples of 0.01 can be read without a rebuild; a read
+ * sums the slots into the requested buckets and never touches enrollments. Besides the
+ * overall GPA, each department and semester has its own slice, where a student's GPA is
+ * taken over their courses in that department or semester only.
+ *
+ * A student is counted once they have an enrollment (in the slice); GPA 0 counts as
+ * "No Grades", as in the original report. EnrollmentService feeds it before/after samples
+ * taken under the student's lock.
+ */
+public class GpaHistogram {
+
+    public static final double[] DEFAULT_EDGES = {6, 7, 8, 9};
+    public static final String NO_GRADES = "No Grades";
+    static final int SCALE = 100;
+    private static final double MAX_GPA = 10;
+    private static final int MAX_SLOT = (int) (MAX_GPA * SCALE);
+    private static final int NO_GRADES_SLOT = MAX_SLOT + 1;
+    private static final int SLOTS = MAX_SLOT + 2;
+    private static final int NOT_COUNTED = -1;
+
+    private final AtomicLongArray overall = new AtomicLongArray(SLOTS);
+    private final Map<String, AtomicLongArray> byDepartment = new ConcurrentHashMap<>();
+    private final Map<Semester, AtomicLongArray> bySemester = new EnumMap<>(Semester.class); // filled once, read-only after
+
+    public GpaHistogram() {
+        for (Semester s : Semester.values()) bySemester.put(s, new AtomicLongArray(SLOTS));
+    }
+
+    /** Overall GPA distribution over the given bucket edges (ascending, within 0-10). */
+    public Map<String, Long> counts(double... edges) {
+        return buckets(overall, edges);
+    }
+
+    /** Distribution of GPAs computed over each student's courses in one department. */
+    public Map<String, Long> department(String dept, double... edges) {
+        AtomicLongArray slots = byDepartment.get(Keys.of(dept));
+        return buckets(slots == null ? new AtomicLongArray(SLOTS) : slots, edges);
+    }
+
+    /** Distribution of GPAs computed over each student's courses in one semester. */
+    public Map<String, Long> semester(Semester semester, double... edges) {
+        return buckets(bySemester.get(semester), edges);
+    }
+
+    public Set<String> departments() {
+        return Collections.unmodifiableSet(byDepartment.keySet());
+    }
+
+    // ---------------- updates ----------------
+
+    // slot of one student in the overall histogram and in the slices of one course
+    static class Sample {
+        final int overall;
+        final int department;
+        final int semester;
+
+        Sample(int overall, int department, int semester) {
+            this.overall = overall;
+            this.department = department;
+            this.semester = semester;
+        }
+    }
+
+    /** Where the student currently sits, overall and in c's department and semester. Call under the student's lock. */
+    Sample sample(Student s, Course c) {
+        List<Enrollment> all = s.getEnrollments();
+        int overallSlot = all.isEmpty() ? NOT_COUNTED : slot(s.getGpa());
+        int deptCredits = 0, deptPoints = 0, semCredits = 0, semPoints = 0;
+        boolean inDept = false, inSem = false;
+        for (Enrollment e : all) {
+            Course ec = e.getCourse();
+            boolean d = ec.getDepartment() == null ? c.getDepartment() == null
+                    : ec.getDepartment().equalsIgnoreCase(c.getDepartment());
+            boolean m = ec.getSemester() == c.getSemester();
+            if (!d && !m) continue;
+            int credits = e.getGrade() == null ? 0 : ec.getCredits();
+            int points = e.getGrade() == null ? 0 : e.getGrade().getPoints() * credits;
+            if (d) { inDept = true; deptCredits += credits; deptPoints += points; }
+            if (m) { inSem = true; semCredits += credits; semPoints += points; }
+        }
+        return new Sample(overallSlot,
+                inDept ? slot(deptCredits == 0 ? 0 : (double) deptPoints / deptCredits) : NOT_COUNTED,
+                inSem ? slot(semCredits == 0 ? 0 : (double) semPoints / semCredits) : NOT_COUNTED);
+    }
+
+    void apply(Sample before, Sample after, Course c) {
+        move(overall, before.overall, after.overall);
+        if (before.department != after.department) {
+            move(byDepartment.computeIfAbsent(Keys.of(c.getDepartment()), k -> new AtomicLongArray(SLOTS)),
+                    before.department, after.department);
+        }
+        if (c.getSemester() != null) move(bySemester.get(c.getSemester()), before.semester, after.semester);
+    }
+
+    private static void move(AtomicLongArray slots, int from, int to) {
+        if (from == to) return;
+        if (from != NOT_COUNTED) slots.decrementAndGet(from);
+        if (to != NOT_COUNTED) slots.incrementAndGet(to);
+    }
+
+    private static int slot(double gpa) {
+        if (gpa <= 0) return NO_GRADES_SLOT;
+        return Math.min((int) (gpa * SCALE + 1e-9), MAX_SLOT);
+    }
+
+    // ---------------- reads ----------------
+
+    private static Map<String, Long> buckets(AtomicLongArray slots, double[] edges) {
+        int[] cut = new int[edges.length];
+        for (int i = 0; i < edges.length; i++) {
+            cut[i] = (int) Math.round(edges[i] * SCALE);
+            if (cut[i] <= 0 || cut[i] > MAX_SLOT || (i > 0 && cut[i] <= cut[i - 1])) {
+                throw new IllegalArgumentException("Bucket edges must be ascending within (0, 10]: " + Arrays.toString(edges));
+            }
+        }
+        long[] counts = new long[edges.length + 1];
+        int b = 0;
+        for (int s = 0; s <= MAX_SLOT; s++) {
+            while (b < cut.length && s >= cut[b]) b++;
+            counts[b] += slots.get(s);
+        }
+        Map<String, Long> out = new LinkedHashMap<>();
+        out.put(NO_GRADES, slots.get(NO_GRADES_SLOT));
+        for (int i = 0; i <= edges.length; i++) {
+            String lo = i == 0 ? "0" : label(edges[i - 1]);
+            String hi = i == edges.length ? label(MAX_GPA) : label(edges[i]);
+            out.put(lo + "-" + hi, counts[i]);
+        }
+        return out;
+    }
+
+    private static String label(double edge) {
+        return edge == Math.rint(edge) ? Integer.toString((int) edge) : Double.toString(edge);
+    }
+}
@@ -0,0 +1,206 @@
+package edu.ccrm.service;
+
+import edu.ccrm.exception.CourseFullException;
+import edu.ccrm.exception.DuplicateEnrollmentException;
+import edu.ccrm.exception.MaxCreditLimitExceededException;
+import edu.ccrm.exception.NotFoundException;
+import edu.ccrm.util.LatencyHistogram;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide call counts, error counts and latency histograms for the hot service
+ * operations, imports, exports and backups.
+ *
+ * Call sites bracket an operation with {@link #start()} and {@link #record(Op, long)} and
+ * report failures with {@link #failed(Op, Failure)}. Recording takes no locks and
+ * allocates nothing; with metrics disabled it is a single volatile read.
+ */
+public final class Metrics {
+
+    public enum Op {
+        FIND_STUDENT, ENROLL, RECORD_GRADE,
+        IMPORT_STUDENTS, IMPORT_COURSES, EXPORT,
+        BACKUP, BACKUP_ARCHIVE, RESTORE_ARCHIVE
+    }
+
+    public enum Failure {
+        NOT_FOUND, DUPLICATE, MAX_CREDITS, COURSE_FULL, IO, OTHER;
+
+        public static Failure of(Throwable t) {
+            if (t instanceof NotFoundException) return NOT_FOUND;
+            if (t instanceof DuplicateEnrollmentException) return DUPLICATE;
+            if (t instanceof MaxCreditLimitExceededException) return MAX_CREDITS;
+            if (t instanceof CourseFullException) return COURSE_FULL;
+            if (t instanceof IOException || t instanceof UncheckedIOException) return IO;
+            return OTHER;
+        }
+
+        /** Failure behind a batch outcome; null for SUCCESS. */
+        public static Failure of(EnrollmentOutcome outcome) {
+            return switch (outcome) {
+                case SUCCESS -> null;
+                case STUDENT_NOT_FOUND, COURSE_NOT_FOUND, NOT_ENROLLED -> NOT_FOUND;
+                case DUPLICATE -> DUPLICATE;
+                case OVER_LIMIT -> MAX_CREDITS;
+                case COURSE_FULL, WAITLISTED -> COURSE_FULL;
+                case INVALID -> OTHER;
+            };
+        }
+    }
+
+    private static final long DISABLED = Long.MIN_VALUE;
+    private static final Op[] OPS = Op.values();
+    private static final Failure[] FAILURES = Failure.values();
+    private static final Metrics SHARED = new Metrics();
+
+    private final LatencyHistogram[] latency = new LatencyHistogram[OPS.length];
+    private final LongAdder[] errors = new LongAdder[OPS.length * FAILURES.length];
+    private volatile boolean enabled = true;
+    private volatile Instant since = Instant.now();
+
+    public Metrics() {
+        for (int i = 0; i < latency.length; i++) latency[i] = new LatencyHistogram();
+        for (int i = 0; i < errors.length; i++) errors[i] = new LongAdder();
+    }
+
+    public static Metrics shared() {
+        return SHARED;
+    }
+
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public boolean isEnabled() { return enabled; }
+
+    /** Timestamp to hand back to {@link #record(Op, long)}. */
+    public long start() {
+        return enabled ? System.nanoTime() : DISABLED;
+    }
+
+    /** Count one call of {@code op} and its latency since {@code start}. */
+    public void record(Op op, long start) {
+        if (start == DISABLED) return;
+        latency[op.ordinal()].record(System.nanoTime() - start);
+    }
+
+    public void failed(Op op, Failure failure) {
+        if (enabled) errors[op.ordinal() * FAILURES.length + failure.ordinal()].increment();
+    }
+
+    public void failed(Op op, Throwable t) {
+        failed(op, Failure.of(t));
+    }
+
+    /**
+     * Run {@code body} as one call of {@code op}, counting its latency and any exception it
+     * throws. For coarse operations (imports, backups); hot paths use start/record directly
+     * to avoid the lambda.
+     */
+    public <T, E extends Exception> T time(Op op, Timed<T, E> body) throws E {
+        long start = start();
+        try {
+            return body.call();
+        } catch (Exception | Error e) {
+            failed(op, e);
+            throw e;
+        } finally {
+            record(op, start);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Timed<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    public void reset() {
+        for (LatencyHistogram h : latency) h.reset();
+        for (LongAdder a : errors) a.reset();
+        since = Instant.now();
+    }
+
+    public Snapshot snapshot() {
+        LatencyHistogram.Snapshot[] hs = new LatencyHistogram.Snapshot[OPS.length];
+        long[] errs = new long[errors.length];
+        for (int i = 0; i < hs.length; i++) hs[i] = latency[i].snapshot();
+        for (int i = 0; i < errs.length; i++) errs[i] = errors[i].sum();
+        return new Snapshot(since, Instant.now(), hs, errs);
+    }
+
+    /** Immutable view of all operations at one point in time. Latencies are in nanoseconds. */
+    public static final class Snapshot {
+        private final Instant from;
+        private final Instant to;
+        private final LatencyHistogram.Snapshot[] latency;
+        private final long[] errors;
+
+        private Snapshot(Instant from, Instant to, LatencyHistogram.Snapshot[] latency, long[] errors) {
+            this.from = from;
+            this.to = to;
+            this.latency = latency;
+            this.errors = errors;
+        }
+
+        public LatencyHistogram.Snapshot latency(Op op) { return latency[op.ordinal()]; }
+
+        public long calls(Op op) { return latency[op.ordinal()].getCount(); }
+
+        public long errors(Op op, Failure failure) {
+            return errors[op.ordinal() * FAILURES.length + failure.ordinal()];
+        }
+
+        public long errors(Op op) {
+            long n = 0;
+            for (Failure f : FAILURES) n += errors(op, f);
+            return n;
+        }
+
+        /** Writes {@link #toString()} followed by the raw non-empty buckets of every histogram. */
+        public void writeTo(Path file) throws IOException {
+            try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                out.write(toString());
+                out.write("\n# buckets: op,lowest_ns,highest_ns,count\n");
+                StringBuilder sb = new StringBuilder();
+                for (Op op : OPS) {
+                    latency(op).forEachBucket((lo, hi, n) ->
+                            sb.append(op).append(',').append(lo).append(',').append(hi).append(',').append(n).append('\n'));
+                }
+                out.write(sb.toString());
+            }
+        }
+
+        /** One row per operation that was called, latencies in microseconds, then error counts. */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("Metrics for ").append(Duration.between(from, to).withNanos(0)).append(" since ").append(from).append('\n');
+            sb.append(String.format("%-16s %9s %7s %10s %10s %10s %10s %10s %10s%n",
+                    "operation", "calls", "errors", "mean_us", "p50_us", "p90_us", "p99_us", "p999_us", "max_us"));
+            for (Op op : OPS) {
+                LatencyHistogram.Snapshot h = latency(op);
+                if (h.getCount() == 0 && errors(op) == 0) continue;
+                sb.append(String.format("%-16s %9d %7d %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n",
+                        op, h.getCount(), errors(op), h.getMean() / 1e3, h.valueAt(0.50) / 1e3,
+                        h.valueAt(0.90) / 1e3, h.valueAt(0.99) / 1e3, h.valueAt(0.999) / 1e3, h.getMax() / 1e3));
+            }
+            for (Op op : OPS) {
+                if (errors(op) == 0) continue;
+                sb.append("errors ").append(op).append(':');
+                for (Failure f : FAILURES) {
+                    long n = errors(op, f);
+                    if (n != 0) sb.append(' ').append(f).append('=').append(n);
+                }
+                sb.append('\n');
+            }
+            return sb.toString();
+        }
+    }
+}
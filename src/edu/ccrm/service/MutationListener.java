@@ -0,0 +1,29 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Student;
+
+/**
+ * Callback for every state change the services make, e.g. to journal it.
+ * Called on the mutating thread, after the change, while the affected student's lock is
+ * held, so calls for one student arrive in the order the changes were applied; these
+ * calls must not block. {@link #commit()} follows once the service call (or the whole
+ * batch) is done and its locks are released.
+ */
+public interface MutationListener {
+
+    MutationListener NONE = new MutationListener() {};
+
+    default void studentAdded(Student s) {}
+    default void emailUpdated(Student s) {}
+    default void studentDeactivated(Student s) {}
+    default void courseAdded(Course c) {}
+    default void instructorAssigned(Course c) {}
+    default void enrolled(Enrollment e) {}
+    default void unenrolled(Enrollment e) {}
+    default void gradeRecorded(Enrollment e) {}
+
+    /** End of a service call on this thread; a durable listener waits here for its writes. */
+    default void commit() {}
+}
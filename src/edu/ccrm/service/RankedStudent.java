@@ -0,0 +1,24 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Student;
+
+/**
+ * A student paired with the GPA used to rank them in a top-K report.
+ */
+public class RankedStudent {
+    private final Student student;
+    private final double gpa;
+
+    public RankedStudent(Student student, double gpa) {
+        this.student = student;
+        this.gpa = gpa;
+    }
+
+    public Student getStudent() { return student; }
+    public double getGpa() { return gpa; }
+
+    @Override
+    public String toString() {
+        return student.getRegNo() + " : " + student.getFullName() + " -> " + String.format("%.2f", gpa);
+    }
+}
@@ -1,64 +1,220 @@
 package edu.ccrm.service;
 
 import edu.ccrm.domain.Student;
+import edu.ccrm.util.Comparators;
+import edu.ccrm.util.EventSink;
+import edu.ccrm.util.Keys;
+import edu.ccrm.util.TextIndex;
 import edu.ccrm.util.Validators;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * StudentService demonstrates CRUD operations and Stream usage.
+ * Students are hash-indexed by regNo (case-insensitive), email and active status,
+ * so lookups are O(1) instead of a scan over every student. RegNos and emails are both
+ * unique (case-insensitive): a student whose regNo or email is taken is not added. Names, regNos and emails
+ * are also in a word index for typeahead search. Safe for concurrent use.
  */
 public class StudentService {
 
-    private final List<Student> students = new ArrayList<>();
+    private final Map<String, Student> byRegNo = new ConcurrentHashMap<>();
+    private final Map<String, Student> byEmail = new ConcurrentHashMap<>();
+    private final Set<Student> active = ConcurrentHashMap.newKeySet();
+    private final TextIndex<Student> nameIndex = new TextIndex<>();
+    // cached listStudents() result; only valid while version has not moved since it was built
+    private final AtomicLong version = new AtomicLong();
+    private volatile SortedView sortedView;
+    private volatile MutationListener listener = MutationListener.NONE;
+    private volatile EventSink events = EventSink.NONE;
+    private final Metrics metrics = Metrics.shared();
+
+    public void setMutationListener(MutationListener l) {
+        this.listener = l == null ? MutationListener.NONE : l;
+    }
+
+    public void setEventSink(EventSink sink) {
+        this.events = sink == null ? EventSink.NONE : sink;
+    }
 
     public void addStudent(Student s) {
         if (!Validators.isValidEmail(s.getEmail())) {
-            System.out.println("Invalid email format, student not added.");
+            events.warn("Invalid email format, student not added.");
             return;
         }
-        students.add(s);
-        System.out.println("Added: " + s);
+        switch (index(s)) {
+            case DUPLICATE_REGNO -> {
+                events.warn("Duplicate regNo, student not added.");
+                return;
+            }
+            case DUPLICATE_EMAIL -> {
+                events.warn("Duplicate email, student not added.");
+                return;
+            }
+            case ADDED -> { }
+        }
+        listener.commit();
+        events.info("Added: ", s);
+    }
+
+    /**
+     * Silent bulk add for importers. Invalid emails, duplicate regNos and duplicate emails
+     * are skipped; returns the number added.
+     */
+    public int addStudents(Collection<Student> batch) {
+        int added = 0;
+        for (Student s : batch) {
+            if (Validators.isValidEmail(s.getEmail()) && index(s) == Indexed.ADDED) added++;
+        }
+        listener.commit();
+        return added;
+    }
+
+    private enum Indexed { ADDED, DUPLICATE_REGNO, DUPLICATE_EMAIL }
+
+    private Indexed index(Student s) {
+        String regKey = Keys.of(s.getRegNo());
+        if (byRegNo.putIfAbsent(regKey, s) != null) return Indexed.DUPLICATE_REGNO;
+        if (byEmail.putIfAbsent(Keys.of(s.getEmail()), s) != null) {
+            byRegNo.remove(regKey, s);
+            return Indexed.DUPLICATE_EMAIL;
+        }
+        if (s.isActive()) active.add(s);
+        nameIndex.put(s, s.getFullName(), s.getRegNo(), s.getEmail());
+        version.incrementAndGet(); // after the put, so a view built before it is never current
+        listener.studentAdded(s);
+        return Indexed.ADDED;
     }
 
     public List<Student> listStudents() {
-        return students.stream()
-                .sorted(Comparator.comparing(Student::getRegNo))
-                .collect(Collectors.toList());
+        long v = version.get();
+        SortedView view = sortedView;
+        if (view != null && view.version == v) return view.students;
+        List<Student> all = new ArrayList<>(byRegNo.values());
+        all.sort(Comparators.byRegNo());
+        List<Student> students = Collections.unmodifiableList(all);
+        // tagged with the version read before the copy: if a student was added meanwhile the
+        // tag is already stale and the next call rebuilds
+        sortedView = new SortedView(v, students);
+        return students;
     }
 
+    /**
+     * Visit every student without copying or sorting; weakly consistent under concurrent adds.
+     */
+    public void forEachStudent(Consumer<Student> action) {
+        for (Student s : byRegNo.values()) action.accept(s);
+    }
+
+    private static final class SortedView {
+        final long version;
+        final List<Student> students;
+
+        SortedView(long version, List<Student> students) {
+            this.version = version;
+            this.students = students;
+        }
+    }
+
+    public List<Student> listActiveStudents() { return List.copyOf(active); }
+
+    public int count() { return byRegNo.size(); }
+
     public Optional<Student> findByRegNo(String regNo) {
-        return students.stream().filter(s -> s.getRegNo().equalsIgnoreCase(regNo)).findFirst();
+        long start = metrics.start();
+        Student s = byRegNo.get(Keys.of(regNo));
+        if (s == null) metrics.failed(Metrics.Op.FIND_STUDENT, Metrics.Failure.NOT_FOUND);
+        metrics.record(Metrics.Op.FIND_STUDENT, start);
+        return Optional.ofNullable(s);
+    }
+
+    public Optional<Student> findByEmail(String email) {
+        return Optional.ofNullable(byEmail.get(Keys.of(email)));
+    }
+
+    /**
+     * Typeahead search: students whose name words, regNo or email start with the words typed
+     * ("ann sm"). Falls back to a typo-tolerant match when nothing starts that way.
+     */
+    public List<Student> searchByName(String query, int limit) {
+        List<Student> hits = nameIndex.prefix(query, limit);
+        return hits.isEmpty() ? nameIndex.fuzzy(query, limit) : hits;
     }
 
     public void updateEmail(String regNo, String newEmail) {
         Optional<Student> opt = findByRegNo(regNo);
         if (opt.isPresent()) {
             if (!Validators.isValidEmail(newEmail)) {
-                System.out.println("Invalid email format.");
+                events.warn("Invalid email format.");
+                return;
+            }
+            if (!changeEmail(opt.get(), newEmail)) {
+                events.warn("Email already in use.");
                 return;
             }
-            opt.get().setEmail(newEmail);
-            System.out.println("Email updated.");
+            events.info("Email updated.");
         } else {
-            System.out.println("Student not found.");
+            events.warn("Student not found.");
         }
     }
 
+    /**
+     * Silent variant of updateEmail; returns false if the student is unknown, the email
+     * invalid, or the email already belongs to another student.
+     */
+    public boolean changeEmail(String regNo, String newEmail) {
+        Optional<Student> opt = findByRegNo(regNo);
+        if (opt.isEmpty() || !Validators.isValidEmail(newEmail)) return false;
+        return changeEmail(opt.get(), newEmail);
+    }
+
+    private boolean changeEmail(Student s, String newEmail) {
+        String newKey = Keys.of(newEmail);
+        synchronized (s) {
+            // claim the new address first, so two students can never hold it at once
+            Student holder = byEmail.putIfAbsent(newKey, s);
+            if (holder != null && holder != s) return false;
+            String oldKey = Keys.of(s.getEmail());
+            if (!oldKey.equals(newKey)) byEmail.remove(oldKey, s);
+            s.setEmail(newEmail);
+            nameIndex.put(s, s.getFullName(), s.getRegNo(), newEmail);
+            listener.emailUpdated(s);
+        }
+        listener.commit();
+        return true;
+    }
+
     public void deactivateStudent(String regNo) {
-        findByRegNo(regNo).ifPresentOrElse(s -> {
+        if (deactivate(regNo)) {
+            events.info("Deactivated: ", regNo);
+        } else {
+            events.warn("Student not found.");
+        }
+    }
+
+    /**
+     * Silent variant of deactivateStudent; returns false if the student is unknown.
+     */
+    public boolean deactivate(String regNo) {
+        Optional<Student> opt = findByRegNo(regNo);
+        if (opt.isEmpty()) return false;
+        Student s = opt.get();
+        synchronized (s) {
             s.setActive(false);
-            System.out.println("Deactivated: " + regNo);
-        }, () -> System.out.println("Student not found."));
+            active.remove(s);
+            listener.studentDeactivated(s);
+        }
+        listener.commit();
+        return true;
     }
 
     // return top N students by count of enrollments (simple example)
     public List<Student> topStudentsByEnrollments(int n) {
-        return students.stream()
+        return byRegNo.values().stream()
                 .sorted((a, b) -> Integer.compare(b.getEnrollments().size(), a.getEnrollments().size()))
                 .limit(n)
                 .collect(Collectors.toList());
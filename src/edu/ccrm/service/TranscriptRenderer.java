@@ -0,0 +1,148 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Student;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Renders transcripts into any {@link Appendable} (a Writer, PrintStream, StringBuilder).
+ *
+ * Output is built in one reusable buffer and handed to the target with a single append,
+ * so a PrintStream is locked and flushed once per transcript rather than once per row.
+ * {@link #append} batches many transcripts and only writes when the buffer passes
+ * {@code flushAt} characters. Grade labels are precomputed and the GPA is formatted by
+ * hand, so rendering allocates nothing per row.
+ *
+ * The GPA printed is computed from the rows printed, rounded half-up to two decimals.
+ * Not thread-safe: use one renderer per thread.
+ */
+public class TranscriptRenderer {
+
+    private static final String[] GRADE_LABELS = new String[Grade.values().length];
+    private static final String NO_GRADE = "N/A";
+    static {
+        for (Grade g : Grade.values()) GRADE_LABELS[g.ordinal()] = g.name();
+    }
+
+    private final StringBuilder buf;
+    private final int flushAt;
+    private int lastPoints;
+    private int lastCredits;
+
+    public TranscriptRenderer() {
+        this(8 * 1024);
+    }
+
+    public TranscriptRenderer(int flushAt) {
+        this.flushAt = Math.max(256, flushAt);
+        this.buf = new StringBuilder(this.flushAt + 1024);
+    }
+
+    /** Render one transcript and write it out immediately. */
+    public void render(Student s, Appendable out) {
+        appendTranscript(s);
+        flush(out);
+    }
+
+    /** Add a transcript to the batch; writes to {@code out} once the buffer is full. Call {@link #flush} at the end. */
+    public void append(Student s, Appendable out) {
+        appendTranscript(s);
+        if (buf.length() >= flushAt) flush(out);
+    }
+
+    /** Short form: header, one "CODE | n cr | GRADE" row per course, and the GPA. */
+    public void renderCompact(Student s, Appendable out) {
+        buf.append("Transcript for ").append(s.getFullName()).append('\n');
+        int credits = 0, points = 0;
+        for (Enrollment e : s.getEnrollments()) {
+            Course c = e.getCourse();
+            Grade g = e.getGrade();
+            buf.append(c.getCode()).append(" | ").append(c.getCredits()).append(" cr | ").append(label(g)).append('\n');
+            if (g != null) {
+                credits += c.getCredits();
+                points += g.getPoints() * c.getCredits();
+            }
+        }
+        appendGpa(buf.append("GPA: "), points, credits).append('\n');
+        flush(out);
+    }
+
+    /** "REGNO - Name | GPA: 8.67" */
+    public void renderSummary(Student s, Appendable out) {
+        appendSummary(s, buf);
+        flush(out);
+    }
+
+    public void renderProfile(Student s, Appendable out) {
+        s.appendProfile(buf);
+        flush(out);
+    }
+
+    /** Grade points and graded credits of the last transcript rendered, i.e. the GPA it printed. */
+    public int lastGradePoints() { return lastPoints; }
+    public int lastGradedCredits() { return lastCredits; }
+
+    public void flush(Appendable out) {
+        if (buf.length() == 0) return;
+        try {
+            out.append(buf);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buf.setLength(0);
+        }
+    }
+
+    private void appendTranscript(Student s) {
+        buf.append("=== Transcript ===\n");
+        buf.append("Student: ").append(s.getRegNo()).append(" - ").append(s.getFullName())
+                .append(s.isActive() ? " (Active)\n" : " (Inactive)\n");
+        int credits = 0, points = 0;
+        boolean any = false;
+        for (Enrollment e : s.getEnrollments()) {
+            any = true;
+            Course c = e.getCourse();
+            Grade g = e.getGrade();
+            buf.append(c.getCode()).append(" | ").append(c.getTitle()).append(" (").append(c.getCredits())
+                    .append(" cr) | Grade: ").append(label(g)).append('\n');
+            if (g != null) {
+                credits += c.getCredits();
+                points += g.getPoints() * c.getCredits();
+            }
+        }
+        lastPoints = points;
+        lastCredits = credits;
+        if (!any) {
+            buf.append("No courses enrolled.\n");
+            return;
+        }
+        appendGpa(buf.append("Overall GPA: "), points, credits).append('\n');
+    }
+
+    static StringBuilder appendSummary(Student s, StringBuilder sb) {
+        int points, credits;
+        synchronized (s) { // Student's totals are guarded by its own monitor; read both at once
+            points = s.getGradePoints();
+            credits = s.getGradedCredits();
+        }
+        sb.append(s.getRegNo()).append(" - ").append(s.getFullName()).append(" | GPA: ");
+        return appendGpa(sb, points, credits);
+    }
+
+    private static String label(Grade g) {
+        return g == null ? NO_GRADE : GRADE_LABELS[g.ordinal()];
+    }
+
+    /** points / credits to two decimals, rounded half-up in integer arithmetic ("0.00" with no credits). */
+    public static StringBuilder appendGpa(StringBuilder sb, long points, long credits) {
+        long hundredths = credits <= 0 ? 0 : (points * 200 + credits) / (2 * credits);
+        sb.append(hundredths / 100).append('.');
+        long frac = hundredths % 100;
+        if (frac < 10) sb.append('0');
+        return sb.append(frac);
+    }
+}
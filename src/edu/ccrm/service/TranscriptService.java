@@ -2,17 +2,35 @@ package edu.ccrm.service;
 
 import edu.ccrm.domain.Enrollment;
 import edu.ccrm.domain.Grade;
-import edu.ccrm.domain.Person;
 import edu.ccrm.domain.Student;
+import edu.ccrm.util.EventSink;
 
 import java.util.List;
 
 /**
  * Service to generate transcripts and compute GPA.
- * Demonstrates polymorphism (Person reference to Student).
+ * GPA for a whole student comes from the running totals kept on {@link Student};
+ * text output goes through {@link TranscriptRenderer}.
  */
 public class TranscriptService {
 
+    private final StudentService studentService;
+    // renderers are not thread-safe; one per thread keeps its buffer across calls
+    private final ThreadLocal<TranscriptRenderer> renderer = ThreadLocal.withInitial(TranscriptRenderer::new);
+    private volatile EventSink events = EventSink.NONE;
+
+    public TranscriptService() {
+        this(null);
+    }
+
+    public TranscriptService(StudentService studentService) {
+        this.studentService = studentService;
+    }
+
+    public void setEventSink(EventSink sink) {
+        this.events = sink == null ? EventSink.NONE : sink;
+    }
+
     /**
      * Compute GPA for given enrollments.
      */
@@ -36,44 +54,41 @@ public class TranscriptService {
      * Print transcript for a student.
      */
     public void printTranscript(Student student) {
-        System.out.println("=== Transcript ===");
-        // Polymorphism: Person reference pointing to Student
-        Person p = student;
-        System.out.println("Student: " + p);
+        renderer.get().render(student, System.out);
+    }
 
-        List<Enrollment> enrolls = student.getEnrollments();
-        if (enrolls.isEmpty()) {
-            System.out.println("No courses enrolled.");
-            return;
+    /**
+     * Write transcripts for many students to one output, batched through a single reusable
+     * buffer. Returns the number written.
+     */
+    public int writeTranscripts(Iterable<Student> students, Appendable out) {
+        TranscriptRenderer renderer = new TranscriptRenderer(64 * 1024);
+        int n = 0;
+        for (Student s : students) {
+            renderer.append(s, out);
+            n++;
         }
+        renderer.flush(out);
+        return n;
+    }
 
-        int totalCredits = 0;
-        int totalPoints = 0;
-
-        for (Enrollment e : enrolls) {
-            Grade g = e.getGrade();
-            int credits = e.getCourse().getCredits();
-            System.out.printf("%s | %s (%d cr) | Grade: %s\n",
-                    e.getCourse().getCode(),
-                    e.getCourse().getTitle(),
-                    credits,
-                    (g == null ? "N/A" : g));
-            if (g != null) {
-                totalCredits += credits;
-                totalPoints += g.getPoints() * credits;
-            }
+    /**
+     * Print transcript for a student looked up by regNo.
+     */
+    public void printTranscriptByRegNo(String regNo) {
+        if (studentService == null) {
+            throw new IllegalStateException("TranscriptService was created without a StudentService");
         }
-
-        double gpa = totalCredits == 0 ? 0.0 : (double) totalPoints / totalCredits;
-        System.out.printf("Overall GPA: %.2f\n", gpa);
+        studentService.findByRegNo(regNo).ifPresentOrElse(
+                this::printTranscript,
+                () -> events.warn("Student not found."));
     }
 
     /**
      * Generate a string summary of a student's transcript.
      */
     public String transcriptSummary(Student student) {
-        double gpa = computeGPA(student.getEnrollments());
-        return student.getRegNo() + " - " + student.getFullName() + " | GPA: " + String.format("%.2f", gpa);
+        return TranscriptRenderer.appendSummary(student, new StringBuilder(64)).toString();
     }
 
     @Override
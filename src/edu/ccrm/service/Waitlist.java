@@ -0,0 +1,68 @@
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Student;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * FIFO waitlist for a full course. Lock-free; a student appears at most once.
+ */
+public class Waitlist {
+
+    private final ConcurrentLinkedDeque<Student> queue = new ConcurrentLinkedDeque<>();
+    private final Set<Student> members = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Append a student; returns their 1-based position, or -1 if already waiting.
+     */
+    public int add(Student s) {
+        if (!members.add(s)) return -1;
+        queue.addLast(s);
+        return size.incrementAndGet();
+    }
+
+    public Student poll() {
+        Student s;
+        while ((s = queue.pollFirst()) != null) {
+            // a concurrent remove(s) may have claimed this student already; only the winner counts it
+            if (members.remove(s)) {
+                size.decrementAndGet();
+                return s;
+            }
+        }
+        return null;
+    }
+
+    // put a polled student back at the head (their seat was taken by someone else meanwhile)
+    void pushFront(Student s) {
+        if (!members.add(s)) return;
+        queue.addFirst(s);
+        size.incrementAndGet();
+    }
+
+    public boolean remove(Student s) {
+        if (!members.remove(s)) return false;
+        queue.remove(s);
+        size.decrementAndGet();
+        return true;
+    }
+
+    // 1-based position, or -1 if not waiting; O(n), for user-facing messages only
+    public int positionOf(Student s) {
+        int pos = 1;
+        for (Student x : queue) {
+            if (x == s) return pos;
+            pos++;
+        }
+        return -1;
+    }
+
+    public int size() { return size.get(); }
+
+    public List<Student> snapshot() { return List.copyOf(queue); }
+}
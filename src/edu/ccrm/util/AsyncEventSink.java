@@ -0,0 +1,138 @@
+package edu.ccrm.util;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link EventSink} that hands events to a background thread through a bounded lock-free
+ * ring buffer.
+ *
+ * Producers claim a slot with one CAS and never block: when the ring is full the event is
+ * dropped and counted (the count is written out with the next batch). The drain thread
+ * renders events, including their arguments, into one buffer and writes it to the target
+ * with a single append per batch. Events below the configured level are rejected before
+ * anything is allocated.
+ */
+public class AsyncEventSink implements EventSink, Closeable {
+
+    private static final long IDLE_PARK_NANOS = 1_000_000; // 1 ms
+    private static final int MAX_BATCH_CHARS = 64 * 1024;
+
+    private final Appendable out;
+    private volatile Level min;
+    private final AtomicReferenceArray<Event> ring;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong(); // next slot to claim
+    private volatile long head;                       // next slot to drain (drain thread only writes it)
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread drainer;
+    private volatile boolean closed;
+
+    private static class Event {
+        final Level level;
+        final String text;
+        final Object arg;
+
+        Event(Level level, String text, Object arg) {
+            this.level = level;
+            this.text = text;
+            this.arg = arg;
+        }
+    }
+
+    /** @param capacity ring size, rounded up to a power of two */
+    public AsyncEventSink(Appendable out, Level min, int capacity) {
+        this.out = out;
+        this.min = min;
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.drainer = new Thread(this::drainLoop, "ccrm-events");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    public AsyncEventSink(Appendable out, Level min) {
+        this(out, min, 8192);
+    }
+
+    public void setLevel(Level min) { this.min = min; }
+
+    public long getDropped() { return dropped.get(); }
+
+    @Override
+    public boolean isEnabled(Level level) {
+        return !closed && level.compareTo(min) >= 0;
+    }
+
+    @Override
+    public void emit(Level level, String text, Object arg) {
+        if (!isEnabled(level)) return;
+        long t;
+        do {
+            t = tail.get();
+            if (t - head >= ring.length()) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!tail.compareAndSet(t, t + 1));
+        ring.set((int) (t & mask), new Event(level, text, arg));
+    }
+
+    private void drainLoop() {
+        StringBuilder buf = new StringBuilder(MAX_BATCH_CHARS + 256);
+        long reportedDrops = 0;
+        while (true) {
+            boolean stopping = closed;
+            long h = head;
+            while (buf.length() < MAX_BATCH_CHARS) {
+                int idx = (int) (h & mask);
+                Event e = ring.get(idx);
+                if (e == null) break; // empty, or claimed but not yet published
+                ring.set(idx, null);
+                h++;
+                head = h;
+                buf.append(e.level.name()).append(' ').append(e.text);
+                if (e.arg != null) buf.append(e.arg);
+                buf.append('\n');
+            }
+            long drops = dropped.get();
+            if (drops != reportedDrops) {
+                buf.append("WARN ").append(drops - reportedDrops).append(" events dropped (buffer full)\n");
+                reportedDrops = drops;
+            }
+            if (buf.length() > 0) {
+                write(buf);
+                buf.setLength(0);
+                continue;
+            }
+            if (stopping && head == tail.get()) return;
+            LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+    }
+
+    private void write(StringBuilder buf) {
+        try {
+            out.append(buf);
+            if (out instanceof Flushable f) f.flush();
+        } catch (IOException e) {
+            dropped.incrementAndGet(); // nowhere to report it but the counter
+        }
+    }
+
+    /** Stop accepting events, write out everything already accepted and stop the drain thread. */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
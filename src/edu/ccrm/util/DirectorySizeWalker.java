@@ -0,0 +1,181 @@
+package edu.ccrm.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Total size of a directory tree, computed in parallel on a fork-join pool.
+ *
+ * Each directory is one task: it lists its entries once via {@link Files#walkFileTree}
+ * (depth 1, so every entry's {@link BasicFileAttributes} are read a single time), adds
+ * its regular files to the running total and forks a task per subdirectory. Tasks are
+ * {@link CountedCompleter}s that never wait on their children, so the Java stack stays
+ * flat however deep the tree is.
+ *
+ * With caching enabled, per-directory results are kept keyed by the directory's mtime,
+ * and a repeat query only stats directories and rescans the ones whose listing changed.
+ * The cache holds at most {@code maxCachedDirs} directories, least recently used out first.
+ * A file rewritten in place does not touch its directory's mtime, so only enable it for
+ * write-once trees such as backups, or call {@link #invalidate()} after in-place edits.
+ */
+public class DirectorySizeWalker {
+
+    private static final DirectorySizeWalker SHARED = new DirectorySizeWalker(Runtime.getRuntime().availableProcessors());
+
+    private final ForkJoinPool pool;
+    private final Map<Path, Listing> cache; // null when caching is off
+
+    /** {@code maxCachedDirs} of 0 turns caching off. */
+    public DirectorySizeWalker(int parallelism, int maxCachedDirs) {
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+        this.cache = maxCachedDirs > 0 ? Collections.synchronizedMap(lru(maxCachedDirs)) : null;
+    }
+
+    public DirectorySizeWalker(int parallelism) {
+        this(parallelism, 0);
+    }
+
+    private static Map<Path, Listing> lru(int max) {
+        return new LinkedHashMap<>(Math.min(max, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, Listing> eldest) {
+                return size() > max;
+            }
+        };
+    }
+
+    /** Shared uncached walker. */
+    public static DirectorySizeWalker shared() {
+        return SHARED;
+    }
+
+    /** Bytes in all regular files under {@code root} (or the file's size if it is one). 0 if missing. */
+    public long size(Path root) throws IOException {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(root, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+        if (!attrs.isDirectory()) return attrs.isRegularFile() ? attrs.size() : 0;
+        SizeTask task = new SizeTask(null, root.toAbsolutePath().normalize(), new LongAdder());
+        try {
+            return pool.invoke(task);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (RuntimeException e) {
+            // the pool may rethrow a copy of the task's exception that wraps the original
+            if (e.getCause() instanceof UncheckedIOException u) throw u.getCause();
+            throw e;
+        }
+    }
+
+    public void invalidate() {
+        if (cache != null) cache.clear();
+    }
+
+    // one directory's own files and its subdirectories, as of a given mtime
+    private static class Listing {
+        final FileTime mtime;
+        final long fileBytes;
+        final List<Path> dirs;
+
+        Listing(FileTime mtime, long fileBytes, List<Path> dirs) {
+            this.mtime = mtime;
+            this.fileBytes = fileBytes;
+            this.dirs = dirs;
+        }
+    }
+
+    // adds one directory's files to total and spawns its subdirectories; completes once they all have
+    private class SizeTask extends CountedCompleter<Long> {
+        private final Path dir;
+        private final LongAdder total; // shared by every task of one walk
+
+        SizeTask(SizeTask parent, Path dir, LongAdder total) {
+            super(parent);
+            this.dir = dir;
+            this.total = total;
+        }
+
+        @Override
+        public void compute() {
+            Listing listing = listing();
+            if (listing != null) {
+                total.add(listing.fileBytes);
+                for (Path sub : listing.dirs) {
+                    addToPendingCount(1);
+                    SizeTask t = new SizeTask(this, sub, total);
+                    // a caller outside the pool may run tasks while it waits; fork() would then go to the common pool
+                    if (ForkJoinTask.getPool() == pool) t.fork();
+                    else pool.execute(t);
+                }
+            }
+            tryComplete();
+        }
+
+        @Override
+        public Long getRawResult() {
+            return total.sum();
+        }
+
+        // null if the directory vanished
+        private Listing listing() {
+            FileTime mtime;
+            try {
+                mtime = Files.getLastModifiedTime(dir, LinkOption.NOFOLLOW_LINKS);
+            } catch (NoSuchFileException e) {
+                if (cache != null) cache.remove(dir);
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (cache == null) return scan(mtime);
+            Listing listing = cache.get(dir);
+            if (listing == null || !listing.mtime.equals(mtime)) {
+                listing = scan(mtime);
+                cache.put(dir, listing);
+            }
+            return listing;
+        }
+
+        private Listing scan(FileTime mtime) {
+            long[] bytes = {0};
+            List<Path> dirs = new ArrayList<>();
+            try {
+                Files.walkFileTree(dir, EnumSet.noneOf(FileVisitOption.class), 1, new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (attrs.isDirectory()) {
+                            dirs.add(file);
+                        } else if (attrs.isRegularFile()) {
+                            bytes[0] += attrs.size();
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                        return FileVisitResult.CONTINUE; // unreadable entry counts as 0, like File.length()
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return new Listing(mtime, bytes[0], dirs);
+        }
+    }
+}
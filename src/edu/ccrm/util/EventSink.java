@@ -0,0 +1,57 @@
+package edu.ccrm.util;
+
+import java.io.PrintStream;
+
+/**
+ * Destination for the human-readable notices services emit ("Added: ...", "Student not found.").
+ *
+ * Services hold {@link #NONE} until one is installed, so library and batch use never pays
+ * for console I/O. A notice is passed as a fixed text plus an optional argument that is
+ * only turned into a string if the level is enabled (for {@link AsyncEventSink}, on its
+ * drain thread), so emitting costs no string building on the caller's thread.
+ */
+public interface EventSink {
+
+    enum Level { DEBUG, INFO, WARN, ERROR }
+
+    boolean isEnabled(Level level);
+
+    /** Emit {@code text} followed by {@code String.valueOf(arg)} (nothing if arg is null). */
+    void emit(Level level, String text, Object arg);
+
+    default void emit(Level level, String text) {
+        emit(level, text, null);
+    }
+
+    default void info(String text) { emit(Level.INFO, text, null); }
+    default void info(String text, Object arg) { emit(Level.INFO, text, arg); }
+    default void warn(String text) { emit(Level.WARN, text, null); }
+    default void warn(String text, Object arg) { emit(Level.WARN, text, arg); }
+
+    EventSink NONE = new EventSink() {
+        @Override
+        public boolean isEnabled(Level level) { return false; }
+
+        @Override
+        public void emit(Level level, String text, Object arg) { }
+    };
+
+    /** Synchronous sink printing plain messages at {@code min} and above; what the console menu uses. */
+    static EventSink console(PrintStream out, Level min) {
+        return new EventSink() {
+            @Override
+            public boolean isEnabled(Level level) { return level.compareTo(min) >= 0; }
+
+            @Override
+            public void emit(Level level, String text, Object arg) {
+                if (!isEnabled(level)) return;
+                out.println(render(text, arg));
+            }
+        };
+    }
+
+    /** Joins a notice's text and argument the way every sink prints it. */
+    static String render(String text, Object arg) {
+        return arg == null ? text : text + arg;
+    }
+}
@@ -0,0 +1,12 @@
+package edu.ccrm.util;
+
+import java.util.Locale;
+
+/**
+ * Normalizes lookup keys (regNo, course code, department) for case-insensitive hash indexes.
+ */
+public class Keys {
+    public static String of(String raw) {
+        return raw == null ? "" : raw.toLowerCase(Locale.ROOT);
+    }
+}
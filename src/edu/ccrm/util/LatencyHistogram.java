@@ -0,0 +1,105 @@
+package edu.ccrm.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent latency histogram with log-linear buckets, in the style of HdrHistogram.
+ *
+ * Values below 64 get a bucket each; above that every power of two is split into 32
+ * equal buckets, so any recorded value is known to within about 3% over the whole
+ * {@code long} range, in a fixed 1888-slot array. {@link #record(long)} is a few
+ * arithmetic ops plus three atomic updates: no locks and no allocation.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    static final int BUCKETS = index(Long.MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    static int index(long value) {
+        int shift = Math.max(0, 58 - Long.numberOfLeadingZeros(value)); // highest bit - SUB_BITS
+        return (shift << SUB_BITS) + (int) (value >>> shift);
+    }
+
+    static long lowestValue(int index) {
+        int shift = index < 2 << SUB_BITS ? 0 : (index >>> SUB_BITS) - 1;
+        return (long) (index - (shift << SUB_BITS)) << shift;
+    }
+
+    static long highestValue(int index) {
+        int shift = index < 2 << SUB_BITS ? 0 : (index >>> SUB_BITS) - 1;
+        return lowestValue(index) + (1L << shift) - 1;
+    }
+
+    /** Record one value; negatives (e.g. from a clock step) count as 0. */
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts.incrementAndGet(index(value));
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) counts.set(i, 0);
+        sum.reset();
+        max.reset();
+    }
+
+    /**
+     * Point-in-time copy. Taken without stopping writers, so under load the totals may be
+     * off by the few values recorded while the copy was made.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) n += copy[i] = counts.get(i);
+        return new Snapshot(copy, n, sum.sum(), max.get());
+    }
+
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() { return count; }
+        public long getMax() { return max; }
+        public double getMean() { return count == 0 ? 0 : (double) sum / count; }
+
+        /** Upper bound of the bucket holding the value at quantile {@code q} (0..1); 0 if empty. */
+        public long valueAt(double q) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(q * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) return Math.min(highestValue(i), max);
+            }
+            return max;
+        }
+
+        /** Calls {@code visitor} with (lowest, highest, count) for every non-empty bucket. */
+        public void forEachBucket(BucketVisitor visitor) {
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) visitor.bucket(lowestValue(i), highestValue(i), counts[i]);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface BucketVisitor {
+        void bucket(long lowest, long highest, long count);
+    }
+}
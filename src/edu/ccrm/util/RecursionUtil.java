@@ -1,19 +1,19 @@
 package edu.ccrm.util;
 
 import java.io.File;
+import java.io.IOException;
 
 /**
- * Recursion utility to compute directory size (demonstrates recursion).
+ * Directory size helper. Kept for existing callers; the work is done by
+ * {@link DirectorySizeWalker} (uncached), which walks in parallel and does not recurse on the stack.
  */
 public class RecursionUtil {
     public static long directorySize(File dir) {
         if (dir == null) return 0;
-        if (!dir.exists()) return 0;
-        if (dir.isFile()) return dir.length();
-        long total = 0;
-        File[] files = dir.listFiles();
-        if (files == null) return 0;
-        for (File f : files) total += directorySize(f);
-        return total;
+        try {
+            return DirectorySizeWalker.shared().size(dir.toPath());
+        } catch (IOException e) {
+            return 0;
+        }
     }
 }
@@ -0,0 +1,237 @@
+package edu.ccrm.util;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory word index for typeahead and typo-tolerant search over names and titles.
+ *
+ * Text is split into lowercase alphanumeric words. Words live in a sorted map (word to
+ * items), so a prefix query is a range scan that stops as soon as enough items are found.
+ * Fuzzy queries go through a trigram index over the distinct words (not the items), which
+ * stays small even for large catalogs because names share most of their words.
+ * Safe for concurrent readers; writers are serialized.
+ */
+public class TextIndex<T> {
+
+    private static final int SIMILAR_WORDS = 5;
+
+    private final ConcurrentSkipListMap<String, Set<T>> byWord = new ConcurrentSkipListMap<>();
+    private final Map<String, Set<String>> wordsByTrigram = new ConcurrentHashMap<>();
+    private final Map<String, Integer> textWordUses = new HashMap<>(); // guarded by this
+    private final Map<T, Words> wordsOf = new ConcurrentHashMap<>();
+
+    // an item's words; the first textCount came from its text, the rest are whole keys
+    private static class Words {
+        final String[] all;
+        final int textCount;
+
+        Words(String[] all, int textCount) {
+            this.all = all;
+            this.textCount = textCount;
+        }
+    }
+
+    /**
+     * Index (or re-index) an item. {@code text} is split into words that are also open to
+     * fuzzy search; each of {@code keys} (e.g. a regNo or email) is added whole, for
+     * prefix search only.
+     */
+    public synchronized void put(T item, String text, String... keys) {
+        remove(item);
+        Set<String> words = new LinkedHashSet<>(words(text));
+        int textCount = words.size();
+        for (String k : keys) {
+            if (k != null && !k.isBlank()) words.add(Keys.of(k.trim()));
+        }
+        Words ws = new Words(words.toArray(new String[0]), textCount);
+        wordsOf.put(item, ws);
+        for (int i = 0; i < ws.all.length; i++) {
+            String w = ws.all[i];
+            byWord.computeIfAbsent(w, x -> ConcurrentHashMap.newKeySet(2)).add(item); // most keys are unique
+            if (i < textCount && textWordUses.merge(w, 1, Integer::sum) == 1) {
+                for (String g : trigrams(w)) wordsByTrigram.computeIfAbsent(g, y -> ConcurrentHashMap.newKeySet()).add(w);
+            }
+        }
+    }
+
+    public synchronized void remove(T item) {
+        Words old = wordsOf.remove(item);
+        if (old == null) return;
+        for (int i = 0; i < old.all.length; i++) {
+            String w = old.all[i];
+            Set<T> items = byWord.get(w);
+            if (items != null) {
+                items.remove(item);
+                if (items.isEmpty()) byWord.remove(w);
+            }
+            if (i < old.textCount && textWordUses.merge(w, -1, Integer::sum) == 0) {
+                textWordUses.remove(w);
+                for (String g : trigrams(w)) {
+                    Set<String> gs = wordsByTrigram.get(g);
+                    if (gs != null) gs.remove(w);
+                }
+            }
+        }
+    }
+
+    public int size() { return wordsOf.size(); }
+
+    /**
+     * Items that have, for every word of the query, some word starting with it
+     * ("ann sm" finds "Anna Smith"). At most {@code limit} items, in order of the matching word.
+     */
+    public List<T> prefix(String query, int limit) {
+        List<String> q = words(query);
+        if (q.isEmpty() || limit <= 0) return List.of();
+        // drive the scan with the longest (most selective) query word
+        String driver = q.get(0);
+        for (String w : q) if (w.length() > driver.length()) driver = w;
+
+        Set<T> out = new LinkedHashSet<>();
+        for (Map.Entry<String, Set<T>> e : byWord.subMap(driver, true, driver + Character.MAX_VALUE, false).entrySet()) {
+            for (T item : e.getValue()) {
+                if (q.size() == 1 || matchesAll(item, q)) {
+                    out.add(item);
+                    if (out.size() >= limit) return new ArrayList<>(out);
+                }
+            }
+        }
+        return new ArrayList<>(out);
+    }
+
+    /**
+     * Best matches by trigram similarity, for misspelt queries ("jonh smiht" finds "John Smith").
+     * Each query word is mapped to its few most similar indexed words, and an item scores the
+     * sum of its best similarity per query word. Candidates come from the query word with the
+     * fewest items, most similar word first, and the scan stops once no remaining word can
+     * beat the current top {@code limit}.
+     */
+    public List<T> fuzzy(String query, int limit) {
+        List<String> q = words(query);
+        if (q.isEmpty() || limit <= 0) return List.of();
+        List<Map<String, Double>> similar = new ArrayList<>(q.size());
+        int driver = -1;
+        long driverItems = Long.MAX_VALUE;
+        double bestPossible = 0;
+        for (String w : q) {
+            Map<String, Double> sim = similarWords(w);
+            long items = 0;
+            double max = 0;
+            for (Map.Entry<String, Double> e : sim.entrySet()) {
+                Set<T> set = byWord.get(e.getKey());
+                if (set != null) items += set.size();
+                max = Math.max(max, e.getValue());
+            }
+            if (items > 0 && items < driverItems) {
+                driver = similar.size();
+                driverItems = items;
+            }
+            bestPossible += max;
+            similar.add(sim);
+        }
+        if (driver < 0) return List.of();
+
+        Map<String, Double> driverWords = similar.get(driver);
+        List<String> order = new ArrayList<>(driverWords.keySet());
+        order.sort((a, b) -> Double.compare(driverWords.get(b), driverWords.get(a)));
+        double driverMax = driverWords.get(order.get(0));
+
+        PriorityQueue<Scored<T>> top = new PriorityQueue<>(limit + 1, Comparator.comparingDouble(x -> x.score));
+        Set<T> seen = new HashSet<>();
+        for (String word : order) {
+            double bound = bestPossible - driverMax + driverWords.get(word);
+            if (top.size() >= limit && bound <= top.peek().score) break;
+            Set<T> set = byWord.get(word);
+            if (set == null) continue;
+            for (T item : set) {
+                Words ws = wordsOf.get(item);
+                if (ws == null || !seen.add(item)) continue;
+                double total = 0;
+                for (Map<String, Double> sim : similar) {
+                    double best = 0;
+                    for (int i = 0; i < ws.textCount; i++) {
+                        Double v = sim.get(ws.all[i]);
+                        if (v != null && v > best) best = v;
+                    }
+                    total += best;
+                }
+                if (top.size() < limit) top.add(new Scored<>(item, total));
+                else if (total > top.peek().score) {
+                    top.poll();
+                    top.add(new Scored<>(item, total));
+                }
+            }
+        }
+        List<Scored<T>> ranked = new ArrayList<>(top);
+        ranked.sort(Comparator.comparingDouble((Scored<T> x) -> x.score).reversed());
+        List<T> out = new ArrayList<>(ranked.size());
+        for (Scored<T> x : ranked) out.add(x.item);
+        return out;
+    }
+
+    private static class Scored<T> {
+        final T item;
+        final double score;
+
+        Scored(T item, double score) {
+            this.item = item;
+            this.score = score;
+        }
+    }
+
+    // the indexed text words most similar to w (Jaccard over trigrams)
+    private Map<String, Double> similarWords(String w) {
+        Set<String> grams = trigrams(w);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String g : grams) {
+            Set<String> ws = wordsByTrigram.get(g);
+            if (ws != null) for (String cand : ws) shared.merge(cand, 1, Integer::sum);
+        }
+        List<Map.Entry<String, Double>> ranked = new ArrayList<>();
+        for (Map.Entry<String, Integer> e : shared.entrySet()) {
+            int common = e.getValue();
+            int union = Math.max(grams.size() + e.getKey().length() - common, common); // n chars, ~n trigrams
+            double sim = (double) common / union;
+            if (sim >= 0.2) ranked.add(Map.entry(e.getKey(), sim));
+        }
+        ranked.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+        Map<String, Double> out = new HashMap<>();
+        for (int i = 0; i < ranked.size() && i < SIMILAR_WORDS; i++) out.put(ranked.get(i).getKey(), ranked.get(i).getValue());
+        return out;
+    }
+
+    private boolean matchesAll(T item, List<String> q) {
+        Words ws = wordsOf.get(item);
+        if (ws == null) return false;
+        outer:
+        for (String p : q) {
+            for (String w : ws.all) if (w.startsWith(p)) continue outer;
+            return false;
+        }
+        return true;
+    }
+
+    static List<String> words(String text) {
+        List<String> out = new ArrayList<>();
+        if (text == null) return out;
+        String s = Keys.of(text);
+        int i = 0, n = s.length();
+        while (i < n) {
+            while (i < n && !Character.isLetterOrDigit(s.charAt(i))) i++;
+            int start = i;
+            while (i < n && Character.isLetterOrDigit(s.charAt(i))) i++;
+            if (i > start) out.add(s.substring(start, i));
+        }
+        return out;
+    }
+
+    // "$word$" windows of 3; a word of n chars has n trigrams
+    static Set<String> trigrams(String w) {
+        String p = "$" + w + "$";
+        Set<String> out = new HashSet<>();
+        for (int i = 0; i + 3 <= p.length(); i++) out.add(p.substring(i, i + 3));
+        return out;
+    }
+}